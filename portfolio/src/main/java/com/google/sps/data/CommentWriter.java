@@ -0,0 +1,295 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.data;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyRange;
+import com.google.appengine.api.taskqueue.Queue;
+import com.google.appengine.api.taskqueue.QueueFactory;
+import com.google.appengine.api.taskqueue.TaskAlreadyExistsException;
+import com.google.appengine.api.taskqueue.TaskHandle;
+import com.google.appengine.api.taskqueue.TaskOptions;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpSession;
+
+/**
+ * Write-behind writer for comment entities. A posted comment is given its key
+ * right away and added to a pull queue, which keeps it until it is saved. The
+ * first comment of every FLUSH_DELAY_MS window also adds a named push task,
+ * which runs once the window is over and saves everything queued with one
+ * batched put. A failed put fails that task, so the task queue retries it, and
+ * the comments it leased go back on the pull queue when their lease runs out.
+ * No comment is lost once {@code write} returns, and nothing is kept in this
+ * instance's memory.
+ *
+ * <p>Comments that are not yet saved are also kept in the poster's session,
+ * which every instance can read, so a poster sees their own comment right away
+ * on any instance. Everyone else sees it once its batch is saved, up to
+ * FLUSH_DELAY_MS later.
+ */
+public final class CommentWriter {
+
+  // Pull queue that holds the comments until they are saved (see queue.xml).
+  public static final String QUEUE_NAME = "comment-writes";
+
+  // How long comments queue up before they are saved together.
+  public static final long FLUSH_DELAY_MS = 2000;
+
+  // Datastore accepts at most 500 entities in one put.
+  public static final int MAX_BATCH_SIZE = 500;
+
+  // How long a save may hold its comments before another save can take them.
+  public static final long LEASE_SECONDS = 60;
+
+  // Keys are allocated in blocks, so most comments need no allocation call.
+  public static final int KEY_BLOCK_SIZE = 100;
+
+  // How long a poster's session shows a comment that has still not been saved,
+  // which only happens if it was cancelled by someone else.
+  public static final long PENDING_TTL_MS = TimeUnit.MINUTES.toMillis(5);
+
+  // Session attribute that holds the poster's comments that are not yet saved.
+  private static final String PENDING_ATTRIBUTE = "pendingComments";
+
+  private final String kind;
+  private final String saveTaskUrl;
+
+  private Iterator<Key> allocatedKeys;
+
+  /**
+   * Creates a writer for entities of the given kind, whose batches are saved by
+   * the task servlet at saveTaskUrl calling {@code saveQueued}.
+   */
+  public CommentWriter(String kind, String saveTaskUrl) {
+    this.kind = kind;
+    this.saveTaskUrl = saveTaskUrl;
+  }
+
+  /**
+   * Queues the comment to be saved, remembers it in the poster's session, and
+   * returns it with its key assigned. The entity passed in must not have a key
+   * yet.
+   */
+  public Entity write(Entity comment, HttpSession session) {
+    Entity keyedComment = new Entity(nextKey());
+    keyedComment.setPropertiesFrom(comment);
+
+    // Named after the comment, so that it can be cancelled.
+    getQueue().add(TaskOptions.Builder.withMethod(TaskOptions.Method.PULL)
+      .taskName(taskName(keyedComment.getKey()))
+      .payload(serialize(keyedComment)));
+    scheduleSave();
+
+    List<PendingComment> pending = getSessionPending(session);
+    pending.add(new PendingComment(keyedComment, System.currentTimeMillis()));
+    // Sessions are only saved when an attribute is set.
+    session.setAttribute(PENDING_ATTRIBUTE, pending);
+    return keyedComment;
+  }
+
+  /**
+   * Returns the poster's comments that have been written but are not yet
+   * saved. Comments that have been saved since are dropped from the session.
+   */
+  public List<Entity> getPending(HttpSession session) {
+    List<PendingComment> pending = session == null ? null : getSessionPending(session);
+    if (pending == null || pending.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    List<Key> keys = new ArrayList<>();
+    for (PendingComment comment : pending) {
+      keys.add(comment.comment.getKey());
+    }
+    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+    Map<Key, Entity> saved = datastore.get(keys);
+
+    long oldest = System.currentTimeMillis() - PENDING_TTL_MS;
+    List<PendingComment> stillPending = new ArrayList<>();
+    List<Entity> comments = new ArrayList<>();
+    for (PendingComment comment : pending) {
+      if (!saved.containsKey(comment.comment.getKey()) && comment.writtenMillis >= oldest) {
+        stillPending.add(comment);
+        comments.add(comment.comment);
+      }
+    }
+    if (stillPending.size() != pending.size()) {
+      session.setAttribute(PENDING_ATTRIBUTE, stillPending);
+    }
+    return comments;
+  }
+
+  /**
+   * Stops the comment with key from being saved if it has not been yet. Call
+   * before deleting the comment: a save that is already running checks for
+   * cancelled comments after its put, and deletes them again.
+   */
+  public void cancel(Key key, HttpSession session) {
+    getQueue().deleteTask(taskName(key));
+    if (session != null) {
+      List<PendingComment> pending = getSessionPending(session);
+      if (pending.removeIf(comment -> comment.comment.getKey().equals(key))) {
+        session.setAttribute(PENDING_ATTRIBUTE, pending);
+      }
+    }
+  }
+
+  /**
+   * Stops every comment that is not yet saved from being saved. The queue is
+   * purged in the background, so a save that is already running may still put
+   * its batch; the job deleting all comments removes those as well.
+   */
+  public void cancelAll(HttpSession session) {
+    getQueue().purge();
+    if (session != null) {
+      session.removeAttribute(PENDING_ATTRIBUTE);
+    }
+  }
+
+  /**
+   * Saves up to MAX_BATCH_SIZE queued comments with one put, and returns true
+   * if more may be waiting. Throws if the put fails, so that the task calling
+   * this is retried; the comments stay queued until their lease runs out.
+   */
+  public boolean saveQueued() {
+    Queue queue = getQueue();
+    List<TaskHandle> tasks = queue.leaseTasks(LEASE_SECONDS, TimeUnit.SECONDS, MAX_BATCH_SIZE);
+    if (tasks.isEmpty()) {
+      return false;
+    }
+    List<Entity> comments = new ArrayList<>();
+    for (TaskHandle task : tasks) {
+      comments.add(deserialize(task.getPayload()));
+    }
+
+    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+    datastore.put(comments);
+
+    // A task that is already gone was cancelled while its comment was being
+    // saved, so that comment is deleted again.
+    List<Boolean> deleted = queue.deleteTask(tasks);
+    List<Key> cancelled = new ArrayList<>();
+    for (int i = 0; i < tasks.size(); i++) {
+      if (!deleted.get(i)) {
+        cancelled.add(comments.get(i).getKey());
+      }
+    }
+    if (!cancelled.isEmpty()) {
+      datastore.delete(cancelled);
+    }
+
+    // The saved comments are now visible to every instance.
+    RecentCommentsCache.getInstance().invalidate();
+    return tasks.size() == MAX_BATCH_SIZE;
+  }
+
+  /**
+   * Adds the task that saves the comments queued in the current window, unless
+   * another comment of the window already has. The task runs once the window
+   * is over, so the whole window is saved in one batch.
+   */
+  private void scheduleSave() {
+    long window = System.currentTimeMillis() / FLUSH_DELAY_MS;
+    try {
+      QueueFactory.getDefaultQueue().add(TaskOptions.Builder.withUrl(saveTaskUrl)
+        .method(TaskOptions.Method.POST)
+        .taskName("save-" + kind + "-" + window)
+        .etaMillis((window + 1) * FLUSH_DELAY_MS));
+    } catch (TaskAlreadyExistsException e) {
+      // The window's comments are already going to be saved.
+    }
+  }
+
+  /**
+   * Queues a task that saves more comments right away, when one batch was not
+   * enough for all of them.
+   */
+  public void scheduleNextBatch() {
+    QueueFactory.getDefaultQueue().add(TaskOptions.Builder.withUrl(saveTaskUrl)
+      .method(TaskOptions.Method.POST));
+  }
+
+  /**
+   * Returns the next key for a comment, allocating a new block if needed.
+   */
+  private synchronized Key nextKey() {
+    if (allocatedKeys == null || !allocatedKeys.hasNext()) {
+      DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+      KeyRange keyRange = datastore.allocateIds(kind, KEY_BLOCK_SIZE);
+      allocatedKeys = keyRange.iterator();
+    }
+    return allocatedKeys.next();
+  }
+
+  private static Queue getQueue() {
+    return QueueFactory.getQueue(QUEUE_NAME);
+  }
+
+  private static String taskName(Key key) {
+    return key.getKind() + "-" + key.getId();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<PendingComment> getSessionPending(HttpSession session) {
+    List<PendingComment> pending = (List<PendingComment>) session.getAttribute(PENDING_ATTRIBUTE);
+    return pending == null ? new ArrayList<>() : pending;
+  }
+
+  private static byte[] serialize(Entity comment) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(comment);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to serialize comment " + comment.getKey(), e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static Entity deserialize(byte[] payload) {
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+      return (Entity) in.readObject();
+    } catch (IOException | ClassNotFoundException e) {
+      throw new IllegalStateException("Failed to read a queued comment", e);
+    }
+  }
+
+  /**
+   * A comment kept in its poster's session until it is saved.
+   */
+  private static final class PendingComment implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Entity comment;
+    private final long writtenMillis;
+
+    PendingComment(Entity comment, long writtenMillis) {
+      this.comment = comment;
+      this.writtenMillis = writtenMillis;
+    }
+  }
+}
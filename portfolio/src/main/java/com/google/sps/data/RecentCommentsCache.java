@@ -0,0 +1,152 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process cache of the newest page of comments, already serialized to JSON
+ * and keyed by page size. Instances stay coherent through a comment version
+ * shared in memcache, which every write to the comments increments.
+ */
+public final class RecentCommentsCache {
+
+  // The memcache key of the version shared by all instances.
+  public static final String VERSION_KEY = "comment-version";
+
+  // Only the page sizes the UI allows are cached, and only a few of them.
+  public static final int MAX_PAGE_SIZE = 50;
+  public static final int MAX_PAGES = 8;
+
+  // How often the shared version is checked, so most reads skip memcache.
+  // Writes on this instance invalidate immediately regardless.
+  public static final long VERSION_CHECK_INTERVAL_MS = 1000;
+
+  private static final RecentCommentsCache INSTANCE = new RecentCommentsCache();
+
+  private final VersionCounter versionCounter = new VersionCounter(VERSION_KEY);
+
+  // Least recently used pages are evicted once there are more than MAX_PAGES.
+  private final Map<Integer, String> pages =
+    new LinkedHashMap<Integer, String>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+        if (size() > MAX_PAGES) {
+          evictions.incrementAndGet();
+          return true;
+        }
+        return false;
+      }
+    };
+
+  // The version that the cached pages were read at.
+  private long version;
+  private long lastVersionCheck;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  private RecentCommentsCache() {}
+
+  /**
+   * Returns the cache shared by all servlets on this instance.
+   */
+  public static RecentCommentsCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns the version of the comments, as last seen by this instance.
+   * Use this version to {@code put} a page read after calling this method.
+   */
+  public synchronized long getVersion() {
+    long now = System.currentTimeMillis();
+    if (now - lastVersionCheck >= VERSION_CHECK_INTERVAL_MS) {
+      long currentVersion = versionCounter.get();
+      lastVersionCheck = now;
+      if (currentVersion != version) {
+        pages.clear();
+        version = currentVersion;
+      }
+    }
+    return version;
+  }
+
+  /**
+   * Returns the JSON of the newest page of comments with the given size, or
+   * null if that page is not cached.
+   */
+  public String get(int pageSize) {
+    String json = null;
+    if (pageSize <= MAX_PAGE_SIZE) {
+      getVersion();
+      synchronized (this) {
+        json = pages.get(pageSize);
+      }
+    }
+    (json == null ? misses : hits).incrementAndGet();
+    return json;
+  }
+
+  /**
+   * Caches the JSON of the newest page of comments with the given size. The
+   * page is dropped if the comments have changed since {@code version}.
+   */
+  public synchronized void put(int pageSize, long version, String json) {
+    if (pageSize <= MAX_PAGE_SIZE && version == this.version) {
+      pages.put(pageSize, json);
+    }
+  }
+
+  /**
+   * Drops all cached pages on every instance. Call after the comments change.
+   */
+  public synchronized void invalidate() {
+    pages.clear();
+    version = versionCounter.increment();
+    lastVersionCheck = System.currentTimeMillis();
+  }
+
+  /**
+   * Returns the number of reads served from the cache.
+   */
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  /**
+   * Returns the number of reads that had to go to datastore.
+   */
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  /**
+   * Returns the number of pages dropped to stay within MAX_PAGES.
+   */
+  public long getEvictionCount() {
+    return evictions.get();
+  }
+
+  /**
+   * Returns the number of pages currently cached.
+   */
+  public synchronized int size() {
+    return pages.size();
+  }
+}
@@ -0,0 +1,144 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.data;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves usernames for many users at once. Usernames are first looked up in
+ * the {@code UsernameCache}. The UserInfo entities are keyed by user id, so
+ * the rest of the users are fetched with a single batched get, and any users
+ * without a username are created with a single batched put.
+ */
+public final class UserDirectory {
+
+  // String identifiers for UserInfo attributes.
+  public static final String USER_INFO_NAME = "UserInfo";
+  public static final String USER_INFO_ID = "id";
+  public static final String USER_INFO_USERNAME = "username";
+
+  // Collects the distinct users (id to email) whose usernames are needed.
+  private final Map<String, String> emailsById = new LinkedHashMap<>();
+
+  /**
+   * Register a user whose username should be resolved. Repeated ids are only
+   * looked up once.
+   */
+  public void add(String email, String id) {
+    if (id != null && !emailsById.containsKey(id)) {
+      emailsById.put(id, email);
+    }
+  }
+
+  /**
+   * Returns the usernames of all registered users, keyed by user id. Users that
+   * do not yet have a username are given one based off their email.
+   */
+  public Map<String, String> resolve() {
+    Map<String, String> usernames = new HashMap<>();
+
+    // Only the users that are not cached are looked up in datastore.
+    // The users' versions are read before their usernames, so a username read
+    // before a concurrent rename is cached at the old version and never used.
+    UsernameCache cache = UsernameCache.getInstance();
+    Map<String, Long> versions = cache.getVersions(emailsById.keySet());
+    Map<String, String> uncached = new LinkedHashMap<>();
+    List<Key> keys = new ArrayList<>();
+    for (Map.Entry<String, String> user : emailsById.entrySet()) {
+      String username = cache.get(user.getKey(), versions.get(user.getKey()));
+      if (username != null) {
+        usernames.put(user.getKey(), username);
+      } else {
+        uncached.put(user.getKey(), user.getValue());
+        keys.add(createUserInfoKey(user.getKey()));
+      }
+    }
+    if (keys.isEmpty()) {
+      return usernames;
+    }
+
+    // One round trip for the whole page, no matter how many users are on it.
+    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+    Map<Key, Entity> entities = datastore.get(keys);
+
+    // Create the usernames of any users that are not yet in datastore.
+    List<Entity> missing = new ArrayList<>();
+    for (Map.Entry<String, String> user : uncached.entrySet()) {
+      String id = user.getKey();
+      Entity entity = entities.get(createUserInfoKey(id));
+      String username;
+      if (entity == null) {
+        username = createUsername(user.getValue());
+        missing.add(createUserInfoEntity(username, id));
+      } else {
+        username = (String) entity.getProperty(USER_INFO_USERNAME);
+      }
+      usernames.put(id, username);
+      cache.put(id, versions.get(id), username);
+    }
+    if (!missing.isEmpty()) {
+      datastore.put(missing);
+    }
+
+    return usernames;
+  }
+
+  /**
+   * Returns the username of the user with id, creating it from the email if the
+   * user does not yet have one.
+   */
+  public static String getUsername(String email, String id) {
+    UserDirectory userDirectory = new UserDirectory();
+    userDirectory.add(email, id);
+    return userDirectory.resolve().get(id);
+  }
+
+  /**
+   * Returns the key of the UserInfo entity belonging to the user with id.
+   */
+  public static Key createUserInfoKey(String id) {
+    return KeyFactory.createKey(USER_INFO_NAME, id);
+  }
+
+  /**
+   * Returns a UserInfo entity holding the username of the user with id.
+   */
+  public static Entity createUserInfoEntity(String username, String id) {
+    Entity entity = new Entity(USER_INFO_NAME, id);
+    entity.setProperty(USER_INFO_ID, id);
+    entity.setProperty(USER_INFO_USERNAME, username);
+    return entity;
+  }
+
+  /**
+   * Create a username based on an email, by taking the portion before '@'.
+   * If email does not contain an "@", return the email.
+   */
+  public static String createUsername(String email) {
+    if (!email.contains("@")) {
+      return email;
+    }
+    return email.substring(0, email.indexOf('@'));
+  }
+}
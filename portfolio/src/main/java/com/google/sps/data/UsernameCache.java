@@ -0,0 +1,175 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process cache of usernames by user id. Entries expire after a while and
+ * the cache holds a bounded number of users. Every user has their own version
+ * in memcache, which changes whenever they change their username, and each
+ * entry remembers the version it was read at. A rename on any instance thus
+ * only makes the other instances drop that one user's entry.
+ */
+public final class UsernameCache {
+
+  // The memcache key prefix of each user's version.
+  public static final String USER_VERSION_PREFIX = "user-version-";
+
+  public static final int MAX_ENTRIES = 1000;
+  public static final long TTL_MS = TimeUnit.MINUTES.toMillis(5);
+
+  private static final UsernameCache INSTANCE = new UsernameCache();
+
+  // Least recently used users are evicted once there are more than MAX_ENTRIES.
+  private final Map<String, CachedUsername> usernames =
+    new LinkedHashMap<String, CachedUsername>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedUsername> eldest) {
+        if (size() > MAX_ENTRIES) {
+          evictions.incrementAndGet();
+          return true;
+        }
+        return false;
+      }
+    };
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  private UsernameCache() {}
+
+  /**
+   * Returns the cache shared by all servlets on this instance.
+   */
+  public static UsernameCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Returns the version of the user with id, shared by all instances. It is
+   * incremented whenever the user changes their username.
+   */
+  public static VersionCounter getUserVersionCounter(String id) {
+    return new VersionCounter(USER_VERSION_PREFIX + id);
+  }
+
+  /**
+   * Returns the current versions of the users with ids, keyed by id, read from
+   * memcache in one call. Read them before the usernames they are used to
+   * {@code get} or {@code put}.
+   */
+  public Map<String, Long> getVersions(Collection<String> ids) {
+    List<String> keys = new ArrayList<>();
+    for (String id : ids) {
+      keys.add(USER_VERSION_PREFIX + id);
+    }
+    Map<String, Long> versionsByKey = VersionCounter.getAll(keys);
+    Map<String, Long> versions = new HashMap<>();
+    for (String id : ids) {
+      versions.put(id, versionsByKey.get(USER_VERSION_PREFIX + id));
+    }
+    return versions;
+  }
+
+  /**
+   * Returns the cached username of the user with id, or null if it is not
+   * cached, has expired, or was read at another version than {@code version}.
+   */
+  public synchronized String get(String id, long version) {
+    CachedUsername cached = usernames.get(id);
+    if (cached != null
+        && (cached.version != version || cached.expiresAt <= System.currentTimeMillis())) {
+      usernames.remove(id);
+      cached = null;
+    }
+    (cached == null ? misses : hits).incrementAndGet();
+    return cached == null ? null : cached.username;
+  }
+
+  /**
+   * Caches the username of the user with id, read at {@code version}. If the
+   * user has changed their username since, the entry is never returned.
+   */
+  public synchronized void put(String id, long version, String username) {
+    cache(id, version, username);
+  }
+
+  /**
+   * Replaces the username of the user with id, here and on every instance.
+   * Call after the user changes their username.
+   */
+  public synchronized void update(String id, String username) {
+    long version = getUserVersionCounter(id).increment();
+    cache(id, version, username);
+  }
+
+  private void cache(String id, long version, String username) {
+    usernames.put(id, 
+      new CachedUsername(username, version, System.currentTimeMillis() + TTL_MS));
+  }
+
+  /**
+   * Returns the number of lookups answered from the cache.
+   */
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  /**
+   * Returns the number of lookups that had to go to datastore.
+   */
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  /**
+   * Returns the number of users dropped to stay within MAX_ENTRIES.
+   */
+  public long getEvictionCount() {
+    return evictions.get();
+  }
+
+  /**
+   * Returns the number of users currently cached.
+   */
+  public synchronized int size() {
+    return usernames.size();
+  }
+
+  /**
+   * A username along with the user's version it was read at and the time it
+   * expires.
+   */
+  private static final class CachedUsername {
+    private final String username;
+    private final long version;
+    private final long expiresAt;
+
+    private CachedUsername(String username, long version, long expiresAt) {
+      this.username = username;
+      this.version = version;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
@@ -0,0 +1,80 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.data;
+
+import com.google.appengine.api.memcache.MemcacheService;
+import com.google.appengine.api.memcache.MemcacheService.SetPolicy;
+import com.google.appengine.api.memcache.MemcacheServiceFactory;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A version number shared by all instances through memcache. Writers increment
+ * the version whenever the data it describes changes, and readers compare it
+ * against the version of their local copy to tell whether that copy is stale.
+ */
+public final class VersionCounter {
+
+  private final MemcacheService memcache;
+  private final String key;
+
+  public VersionCounter(String key) {
+    this.memcache = MemcacheServiceFactory.getMemcacheService();
+    this.key = key;
+  }
+
+  /**
+   * Returns the current version.
+   */
+  public long get() {
+    Object version = memcache.get(key);
+    if (version == null) {
+      // The version was never set or was evicted. Restart from a value that no
+      // earlier version could have had, so that no stale copy looks current.
+      memcache.put(key, initialVersion(), null, SetPolicy.ADD_ONLY_IF_NOT_PRESENT);
+      version = memcache.get(key);
+    }
+    return version == null ? initialVersion() : (Long) version;
+  }
+
+  /**
+   * Returns the current versions of the counters with the given keys, read
+   * from memcache together in one call.
+   */
+  public static Map<String, Long> getAll(Collection<String> keys) {
+    MemcacheService memcache = MemcacheServiceFactory.getMemcacheService();
+    Map<String, Object> found = memcache.getAll(keys);
+    Map<String, Long> versions = new HashMap<>();
+    for (String key : keys) {
+      Object version = found.get(key);
+      // Versions that were never set or were evicted are restarted one by one.
+      versions.put(key, version == null ? new VersionCounter(key).get() : (Long) version);
+    }
+    return versions;
+  }
+
+  /**
+   * Moves on to a new version, and returns it.
+   */
+  public long increment() {
+    Long version = memcache.increment(key, 1, initialVersion());
+    return version == null ? initialVersion() : version;
+  }
+
+  private static long initialVersion() {
+    return System.currentTimeMillis();
+  }
+}
@@ -17,13 +17,20 @@ package com.google.sps.servlets;
 import com.google.appengine.api.datastore.DatastoreService;
 import com.google.appengine.api.datastore.DatastoreServiceFactory;
 import com.google.appengine.api.datastore.Entity;
-import com.google.appengine.api.datastore.PreparedQuery;
-import com.google.appengine.api.datastore.Query;
-import com.google.appengine.api.datastore.Query.SortDirection;
 import com.google.appengine.api.users.UserService;
 import com.google.appengine.api.users.UserServiceFactory;
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.data.RecentCommentsCache;
+import com.google.sps.data.UserDirectory;
+import com.google.sps.data.UsernameCache;
+import com.google.sps.data.VersionCounter;
 import java.io.IOException;
+import java.io.Writer;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -32,32 +39,62 @@ import javax.servlet.http.HttpServletResponse;
 @WebServlet("/auth")
 public class AuthServlet extends HttpServlet {
 
+  // Gson is thread-safe, so one instance is shared by all requests.
+  private static final Gson GSON = new GsonBuilder()
+    .registerTypeAdapter(UserAuth.class, new UserAuthAdapter())
+    .create();
+
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    UserService userService = UserServiceFactory.getUserService();
+    String etag;
+    if (userService.isUserLoggedIn()) {
+      String userEmail = userService.getCurrentUser().getEmail();
+      String id = userService.getCurrentUser().getUserId();
+
+      // The response only changes when the user's UserInfo does, so the client's
+      // copy can be checked without reading the username from datastore.
+      long userVersion = getUserVersionCounter(id).get();
+      etag = ETags.create(id, userEmail, createLogoutUrl(userService), "" + userVersion);
+    } else {
+      etag = ETags.create(createLoginUrl(userService));
+    }
+    if (ETags.answerIfNotModified(request, response, etag)) {
+      return;
+    }
+    ETags.setETag(response, etag);
+
+    UserAuth userAuth = getUserAuth(userService);
     response.setContentType("application/json");
+    writeJson(userAuth, response.getWriter());
+  }
 
-    UserService userService = UserServiceFactory.getUserService();
-    UserAuth userAuth;
+  /**
+   * Returns the login/logout and user information of the current user.
+   */
+  static UserAuth getUserAuth(UserService userService) {
     if (userService.isUserLoggedIn()) {
       String userEmail = userService.getCurrentUser().getEmail();
-      final String urlToRedirectToAfterUserLogsOut = "/";
-      String logoutUrl = 
-        userService.createLogoutURL(urlToRedirectToAfterUserLogsOut);
+      String logoutUrl = createLogoutUrl(userService);
       String id = userService.getCurrentUser().getUserId();
       String username = getUsername(userEmail, id);
 
       // Create UserAuth object to represent logged-in user.
-      userAuth = new UserAuth(logoutUrl, userEmail, username);
-    } else {
-      final String urlToRedirectToAfterUserLogsIn = "/";
-      String loginUrl = userService.createLoginURL(urlToRedirectToAfterUserLogsIn);
-
-      // Create UserAuth object to represent logged-out user.
-      userAuth = new UserAuth(loginUrl);
+      return new UserAuth(logoutUrl, userEmail, username);
     }
 
-    String json = convertToJson(userAuth);
-    response.getWriter().println(json);
+    // Create UserAuth object to represent logged-out user.
+    return new UserAuth(createLoginUrl(userService));
+  }
+
+  private static String createLogoutUrl(UserService userService) {
+    final String urlToRedirectToAfterUserLogsOut = "/";
+    return userService.createLogoutURL(urlToRedirectToAfterUserLogsOut);
+  }
+
+  private static String createLoginUrl(UserService userService) {
+    final String urlToRedirectToAfterUserLogsIn = "/";
+    return userService.createLoginURL(urlToRedirectToAfterUserLogsIn);
   }
 
   @Override
@@ -75,20 +112,32 @@ public class AuthServlet extends HttpServlet {
     String id = userService.getCurrentUser().getUserId();
     putUsername(username, id);
 
+    // Cached comments show the old username, so they must be refreshed. The
+    // user's /auth response was refreshed by moving on to a new user version.
+    RecentCommentsCache.getInstance().invalidate();
+
     response.sendRedirect("/");
   }
 
   /**
-   * Add the username to the database, or replace the current username.
+   * Add the username to the database, or replace the current username. The
+   * user's version moves on, so every instance drops the old username.
    */
   public static void putUsername(String username, String id) {
     DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
-    Entity entity = new Entity("UserInfo", id);
-    entity.setProperty("id", id);
-    entity.setProperty("username", username);
+    Entity entity = UserDirectory.createUserInfoEntity(username, id);
     // The put() function automatically inserts new data or updates existing 
     // data based on ID
     datastore.put(entity);
+    UsernameCache.getInstance().update(id, username);
+  }
+
+  /**
+   * Returns the version of the UserInfo of the user with id, shared by all 
+   * instances. It is incremented whenever the user changes their username.
+   */
+  public static VersionCounter getUserVersionCounter(String id) {
+    return UsernameCache.getUserVersionCounter(id);
   }
 
   /**
@@ -106,23 +155,10 @@ public class AuthServlet extends HttpServlet {
   /** 
    * Returns the username of the user with id, or create an new username based
    * off the input email if the user does not yet have a username.
+   * The UserInfo entity is looked up by key, behind the username cache.
    */
   public static String getUsername(String email, String id) {
-    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
-    Query query =
-        new Query("UserInfo")
-            .setFilter(new Query.FilterPredicate("id", Query.FilterOperator.EQUAL, id));
-    PreparedQuery results = datastore.prepare(query);
-    Entity entity = results.asSingleEntity();
-
-    // If user does not yet have username, create and add the username to datastore.
-    if (entity == null) {
-      String username = createUsername(email);
-      putUsername(username, id);
-      return username;
-    }
-    String username = (String) entity.getProperty("username");
-    return username;
+    return UserDirectory.getUsername(email, id);
   }
 
   /**
@@ -130,25 +166,86 @@ public class AuthServlet extends HttpServlet {
    * If email does not contain an "@", return the email.
    */
   public static String createUsername(String email) {
-    if (!email.contains("@")) {
-      return email;
-    }
-    return email.substring(0, email.indexOf('@'));
+    return UserDirectory.createUsername(email);
   }
 
   /**
   * Converts a UserAuth object into a JSON string using the Gson library.
   */
-  private String convertToJson(UserAuth userAuth) {
-    Gson gson = new Gson();
-    String json = gson.toJson(userAuth);
-    return json;
+  static String convertToJson(UserAuth userAuth) {
+    return GSON.toJson(userAuth, UserAuth.class);
+  }
+
+  /**
+   * Writes a UserAuth object as JSON directly to the writer, using the Gson library.
+   */
+  static void writeJson(UserAuth userAuth, Writer writer) throws IOException {
+    JsonWriter jsonWriter = GSON.newJsonWriter(writer);
+    GSON.toJson(userAuth, UserAuth.class, jsonWriter);
+    jsonWriter.flush();
+  }
+
+  /**
+   * Reads and writes a UserAuth as JSON.
+   */
+  static final class UserAuthAdapter extends TypeAdapter<UserAuth> {
+    @Override
+    public void write(JsonWriter out, UserAuth userAuth) throws IOException {
+      if (userAuth == null) {
+        out.nullValue();
+        return;
+      }
+      out.beginObject();
+      out.name("loggedIn").value(userAuth.loggedIn);
+      out.name("loginUrl").value(userAuth.loginUrl);
+      out.name("logoutUrl").value(userAuth.logoutUrl);
+      out.name("email").value(userAuth.email);
+      out.name("username").value(userAuth.username);
+      out.endObject();
+    }
+
+    @Override
+    public UserAuth read(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      boolean loggedIn = false;
+      String loginUrl = null;
+      String logoutUrl = null;
+      String email = null;
+      String username = null;
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "loggedIn":
+            loggedIn = in.nextBoolean();
+            break;
+          case "loginUrl":
+            loginUrl = DataServlet.readString(in);
+            break;
+          case "logoutUrl":
+            logoutUrl = DataServlet.readString(in);
+            break;
+          case "email":
+            email = DataServlet.readString(in);
+            break;
+          case "username":
+            username = DataServlet.readString(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return new UserAuth(loggedIn, loginUrl, logoutUrl, email, username);
+    }
   }
 
   /**
    * Inner class that holds relevant login/logout and user information.
    */
-  class UserAuth {
+  static class UserAuth {
     // Fields that hold relevant login data.
     private boolean loggedIn;
     private String loginUrl;
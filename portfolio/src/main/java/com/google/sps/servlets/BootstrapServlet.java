@@ -0,0 +1,116 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.appengine.api.ThreadManager;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.users.UserService;
+import com.google.appengine.api.users.UserServiceFactory;
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.data.RecentCommentsCache;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Servlet that returns everything the page needs when it loads, in one round
+ * trip: the same auth information as /auth and, for logged-in users, the same
+ * newest page of comments as /data, along with the comment version they were
+ * read at. The comments are read on a second thread while the username is
+ * looked up.
+ */
+@WebServlet("/bootstrap")
+public class BootstrapServlet extends HttpServlet {
+
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    UserService userService = UserServiceFactory.getUserService();
+
+    // Comments are only shown to logged-in users.
+    FutureTask<String> comments = null;
+    Thread commentsThread = null;
+    long version = 0;
+    if (userService.isUserLoggedIn()) {
+      int commentMax = DataServlet.getCommentMax();
+      version = RecentCommentsCache.getInstance().getVersion();
+      long pageVersion = version;
+      List<Entity> pendingComments = DataServlet.getPendingComments(request);
+      comments = new FutureTask<>(
+        () -> DataServlet.getNewestCommentsJson(commentMax, pageVersion, pendingComments));
+      commentsThread = ThreadManager.createThreadForCurrentRequest(comments);
+      commentsThread.start();
+    }
+
+    String auth;
+    String commentsJson = null;
+    try {
+      auth = AuthServlet.convertToJson(AuthServlet.getUserAuth(userService));
+      if (comments != null) {
+        commentsJson = getResult(comments);
+      }
+    } finally {
+      // The comments thread must not outlive the request, even if the auth
+      // lookup failed before its result was needed.
+      if (commentsThread != null) {
+        comments.cancel(true);
+        joinQuietly(commentsThread);
+      }
+    }
+
+    // Assemble the response from the JSON the other servlets already produce.
+    response.setContentType("application/json");
+    JsonWriter jsonWriter = new JsonWriter(response.getWriter());
+    jsonWriter.beginObject();
+    jsonWriter.name("auth").jsonValue(auth);
+    if (commentsJson != null) {
+      jsonWriter.name("comments").jsonValue(commentsJson);
+      // The page polls /comment-version for changes made after this version.
+      jsonWriter.name("commentVersion").value(version);
+    }
+    jsonWriter.endObject();
+    jsonWriter.flush();
+  }
+
+  /**
+   * Waits for the thread to finish, keeping the interrupt if this thread is
+   * interrupted meanwhile.
+   */
+  private static void joinQuietly(Thread thread) {
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Waits for the task and returns its result.
+   */
+  private static String getResult(FutureTask<String> task) throws IOException {
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while reading comments", e);
+    } catch (ExecutionException e) {
+      throw new IOException("Failed to read comments", e.getCause());
+    }
+  }
+}
@@ -0,0 +1,75 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.sps.data.RecentCommentsCache;
+import com.google.sps.data.UsernameCache;
+import java.io.IOException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/** Servlet that reports the statistics of this instance's caches. */
+@WebServlet("/cache-stats")
+public class CacheStatsServlet extends HttpServlet {
+
+  private static final Gson GSON = new Gson();
+
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    UsernameCache usernameCache = UsernameCache.getInstance();
+    RecentCommentsCache commentsCache = RecentCommentsCache.getInstance();
+    CacheStats stats = new CacheStats(
+      new Stats(usernameCache.getHitCount(), usernameCache.getMissCount(), 
+        usernameCache.getEvictionCount(), usernameCache.size()),
+      new Stats(commentsCache.getHitCount(), commentsCache.getMissCount(), 
+        commentsCache.getEvictionCount(), commentsCache.size()));
+
+    response.setContentType("application/json");
+    response.getWriter().println(GSON.toJson(stats));
+  }
+
+  /**
+   * Inner class that holds the statistics of every cache.
+   */
+  class CacheStats {
+    private Stats usernames;
+    private Stats recentComments;
+
+    private CacheStats(Stats usernames, Stats recentComments) {
+      this.usernames = usernames;
+      this.recentComments = recentComments;
+    }
+  }
+
+  /**
+   * Inner class that holds the statistics of one cache.
+   */
+  class Stats {
+    private long hits;
+    private long misses;
+    private long evictions;
+    private int size;
+
+    private Stats(long hits, long misses, long evictions, int size) {
+      this.hits = hits;
+      this.misses = misses;
+      this.evictions = evictions;
+      this.size = size;
+    }
+  }
+}
@@ -0,0 +1,46 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.data.RecentCommentsCache;
+import java.io.IOException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Servlet that returns the current version of the comments, which every write
+ * to the comments changes. Open pages poll it and only refetch /data when the
+ * version moves on, so no connection is held open between polls.
+ */
+@WebServlet("/comment-version")
+public class CommentVersionServlet extends HttpServlet {
+
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    // The version is read from memcache at most once a second per instance.
+    long version = RecentCommentsCache.getInstance().getVersion();
+
+    response.setContentType("application/json");
+    response.setHeader("Cache-Control", "no-cache");
+    JsonWriter jsonWriter = new JsonWriter(response.getWriter());
+    jsonWriter.beginObject();
+    jsonWriter.name("version").value(version);
+    jsonWriter.endObject();
+    jsonWriter.flush();
+  }
+}
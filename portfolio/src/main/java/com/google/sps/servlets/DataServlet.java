@@ -16,21 +16,37 @@ package com.google.sps.servlets;
 
 import com.google.appengine.api.datastore.DatastoreService;
 import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.Cursor;
 import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.FetchOptions;
 import com.google.appengine.api.datastore.PreparedQuery;
 import com.google.appengine.api.datastore.Query;
+import com.google.appengine.api.datastore.QueryResultList;
 import com.google.appengine.api.datastore.Query.SortDirection;
 import com.google.appengine.api.users.UserService;
 import com.google.appengine.api.users.UserServiceFactory;
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.data.CommentWriter;
+import com.google.sps.data.RecentCommentsCache;
+import com.google.sps.data.UserDirectory;
 import java.io.IOException;
+import java.io.Writer;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 /** Servlet that handles comment data. */
 @WebServlet("/data")
@@ -44,80 +60,231 @@ public class DataServlet extends HttpServlet {
   public static final String COMMENT_USERNAME = "username";
   public static final String COMMENT_NAME = "Comment";
   public static final String COMMENT_MAX = "comment-max";
+  public static final String PAGE_TOKEN = "page-token";
+
+  // Gson is thread-safe, so one instance (with its adapters) is shared by all 
+  // requests. The adapters write the comment classes without reflection.
+  private static final Gson GSON = new GsonBuilder()
+    .registerTypeAdapter(CommentPage.class, new CommentPageAdapter())
+    .registerTypeAdapter(Comment.class, new CommentAdapter())
+    .registerTypeAdapter(User.class, new UserAdapter())
+    .create();
+
+  // System property that turns on write-behind saving of comments.
+  public static final String WRITE_BEHIND_PROPERTY = "comments.write-behind";
+
+  // Saves posted comments in batches through the task queue, or null if 
+  // comments are saved as they are posted.
+  private static final CommentWriter commentWriter = Boolean.getBoolean(WRITE_BEHIND_PROPERTY)
+    ? new CommentWriter(COMMENT_NAME, SaveCommentsTaskServlet.TASK_URL) : null;
 
   // Default for max number of comments to show.
-  public final int COMMENT_MAX_DEFAULT = 5;
+  public static final int COMMENT_MAX_DEFAULT = 5;
 
-  // Maximum number of comments that are shown in UI.
-  private int commentMax;
+  // Maximum number of comments that are shown in UI. Shared with the
+  // bootstrap servlet, which also serves the newest page of comments.
+  private static volatile int commentMax = COMMENT_MAX_DEFAULT;
 
   // UserService object to identify user attributes
   private UserService userService;
 
   @Override
   public void init() {
-    this.commentMax = COMMENT_MAX_DEFAULT;
     this.userService = UserServiceFactory.getUserService();
   }
 
   /**
-  * Converts a List of Comments into a JSON string using the Gson library.
+   * Returns the max number of comments shown when the client does not say.
+   */
+  static int getCommentMax() {
+    return commentMax;
+  }
+
+  /**
+   * Returns the write-behind writer for comments, or null if it is turned off.
+   */
+  static CommentWriter getCommentWriter() {
+    return commentWriter;
+  }
+
+  /**
+   * Returns the comments the requesting user posted that are not yet saved.
+   */
+  static List<Entity> getPendingComments(HttpServletRequest request) {
+    return commentWriter == null 
+      ? Collections.emptyList() : commentWriter.getPending(request.getSession(false));
+  }
+
+  /**
+  * Converts a page of Comments into a JSON string using the Gson library.
   */
-  private String convertToJson(List<Comment> messages) {
-    Gson gson = new Gson();
-    String json = gson.toJson(messages);
-    return json;
+  static String convertToJson(CommentPage page) {
+    return GSON.toJson(page, CommentPage.class);
+  }
+
+  /**
+   * Writes a page of Comments as JSON directly to the writer, without first 
+   * building the whole JSON string.
+   */
+  static void writeJson(CommentPage page, Writer writer) throws IOException {
+    JsonWriter jsonWriter = GSON.newJsonWriter(writer);
+    GSON.toJson(page, CommentPage.class, jsonWriter);
+    jsonWriter.flush();
   }
 
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
     // Get comments in datastore, by most recent order at the top.
-    Query query = new Query(COMMENT_NAME)
-      .addSort(COMMENT_DATE, SortDirection.DESCENDING);
-    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
-    PreparedQuery results = datastore.prepare(query);
+    PreparedQuery results = prepareCommentQuery();
 
     // Extract limit on number of comments from query string (default is 5).
     int commentMax = 
-      Integer.parseInt(getParameter(request, "comment-max", "" + this.commentMax));
+      parseCommentMax(getParameter(request, COMMENT_MAX, "" + DataServlet.commentMax));
+    if (commentMax < 1) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid comment max.");
+      return;
+    }
 
-    // Iterate over all entities, get comment.
-    List<Comment> comments = getComments(results, commentMax);
+    // The limit is pushed into the query, and the page token (if any) resumes the
+    // query where the previous page ended, so earlier pages are never re-read.
+    FetchOptions fetchOptions = FetchOptions.Builder.withLimit(commentMax);
+    String pageToken = request.getParameter(PAGE_TOKEN);
+    if (pageToken != null && !pageToken.isEmpty()) {
+      try {
+        fetchOptions.startCursor(Cursor.fromWebSafeString(pageToken));
+      } catch (IllegalArgumentException e) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid page token.");
+        return;
+      }
+    }
 
-    // Return comments in JSON format.
+    // Every change to the comments moves on to a new version, so the client's
+    // copy of this page is current if it was sent with the same version.
+    // Read the version before the comments, so a concurrent change is noticed.
+    RecentCommentsCache cache = RecentCommentsCache.getInstance();
+    long version = cache.getVersion();
+    String etag = ETags.create(COMMENT_NAME, "" + version, "" + commentMax, pageToken);
+    if (ETags.answerIfNotModified(request, response, etag)) {
+      return;
+    }
+    ETags.setETag(response, etag);
     response.setContentType("application/json;");
-    String json = convertToJson(comments);
-    response.getWriter().println(json);
+
+    // Deeper pages are not cached, so they are streamed straight to the response.
+    if (fetchOptions.getStartCursor() != null) {
+      writeJson(getCommentPage(results, fetchOptions, commentMax), response.getWriter());
+      return;
+    }
+
+    // Return comments in JSON format.
+    response.getWriter().println(
+      getNewestCommentsJson(commentMax, version, getPendingComments(request)));
   }
 
   /**
-   * Get all Comment entities from the provided PreparedQuery. 
-   * No more comments than the provided limit allows will be returned.
+   * Returns the query for all comments, by most recent order at the top.
    */
-  private List<Comment> getComments(PreparedQuery results, int commentMax) {
-    List<Comment> comments = new ArrayList<>();
+  static PreparedQuery prepareCommentQuery() {
+    Query query = new Query(COMMENT_NAME)
+      .addSort(COMMENT_DATE, SortDirection.DESCENDING);
+    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+    return datastore.prepare(query);
+  }
+
+  /**
+   * Returns the JSON of the newest page of comments, from the cache when 
+   * possible. The {@code version} must be read from the cache beforehand.
+   */
+  static String getNewestCommentsJson(int commentMax, long version, 
+    List<Entity> pendingComments) {
+    FetchOptions fetchOptions = FetchOptions.Builder.withLimit(commentMax);
+
+    // The poster's comments that are not yet saved go at the top of the newest
+    // page, so posters see their own comments right away.
+    if (!pendingComments.isEmpty()) {
+      CommentPage page = getCommentPage(prepareCommentQuery(), fetchOptions, commentMax);
+      return convertToJson(addPendingComments(page, pendingComments));
+    }
 
-    // Populate comment list until limit is reached or no comments remain.
-    int count = 0;
-    for (Entity entity : results.asIterable()) {
+    // The newest page of comments is served from the cache when possible.
+    RecentCommentsCache cache = RecentCommentsCache.getInstance();
+    String json = cache.get(commentMax);
+    if (json == null) {
+      // Get the page of comments.
+      CommentPage page = getCommentPage(prepareCommentQuery(), fetchOptions, commentMax);
+      json = convertToJson(page);
+      cache.put(commentMax, version, json);
+    }
+    return json;
+  }
+
+  /**
+   * Get a page of Comment entities from the provided PreparedQuery, along with
+   * the token of the next page. The next page token is null on the last page.
+   */
+  private static CommentPage getCommentPage(PreparedQuery results, FetchOptions fetchOptions, 
+    int commentMax) {
+    QueryResultList<Entity> entities = results.asQueryResultList(fetchOptions);
+    List<Comment> comments = getComments(entities);
+
+    // A full page means more comments may remain.
+    String nextPageToken = null;
+    if (entities.size() >= commentMax) {
+      nextPageToken = entities.getCursor().toWebSafeString();
+    }
+    return new CommentPage(comments, nextPageToken);
+  }
+
+  /**
+   * Returns the page with the pending comments added at the top, newest first.
+   * Pending comments that were saved while the page was read are not repeated.
+   */
+  private static CommentPage addPendingComments(CommentPage page, List<Entity> pendingComments) {
+    Set<Long> ids = new HashSet<>();
+    for (Comment comment : page.comments) {
+      ids.add(comment.id);
+    }
+    List<Entity> unsavedComments = new ArrayList<>();
+    for (Entity entity : pendingComments) {
+      if (!ids.contains(entity.getKey().getId())) {
+        unsavedComments.add(entity);
+      }
+    }
+    unsavedComments.sort((a, b) -> 
+      ((Date) b.getProperty(COMMENT_DATE)).compareTo((Date) a.getProperty(COMMENT_DATE)));
+
+    // The page is not truncated, so the next page token still follows on.
+    List<Comment> comments = getComments(unsavedComments);
+    comments.addAll(page.comments);
+    return new CommentPage(comments, page.nextPageToken);
+  }
+
+  /**
+   * Build the Comments from the provided Comment entities.
+   */
+  private static List<Comment> getComments(List<Entity> entities) {
+    // Collect the users that posted the comments.
+    UserDirectory userDirectory = new UserDirectory();
+    for (Entity entity : entities) {
+      userDirectory.add((String) entity.getProperty(COMMENT_EMAIL), 
+        (String) entity.getProperty(COMMENT_ID));
+    }
+
+    // The username is not fetched from the entity as it could be updated.
+    // All usernames on the page are resolved together in one batch.
+    Map<String, String> usernames = userDirectory.resolve();
+
+    List<Comment> comments = new ArrayList<>();
+    for (Entity entity : entities) {
       // Build the comment.
       String text = (String) entity.getProperty(COMMENT_TEXT);
       Date date = (Date) entity.getProperty(COMMENT_DATE);
       String email = (String) entity.getProperty(COMMENT_EMAIL);
       String userId = (String) entity.getProperty(COMMENT_ID);
-      
-      // The username is not fetched from the entity as it could be updated.
-      String username = AuthServlet.getUsername(email, userId);
-      User user = new User(email, userId, username);
+      User user = new User(email, userId, usernames.get(userId));
       long id = entity.getKey().getId();
       Comment comment = new Comment(id, text, date, user);
       comments.add(comment);
-
-      // Update count, and stop adding comments if comment max limit is reached.
-      count++;
-      if (commentMax <= count) {
-        return comments;
-      }
     }
 
     return comments;
@@ -181,9 +348,15 @@ public class DataServlet extends HttpServlet {
     Comment commentObject = new Comment(text, date, user);
     Entity commentEntity = commentObject.createCommentEntity();
 
-    // Add the comment entity to the DatastoreService.
-    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
-    datastore.put(commentEntity);
+    // Add the comment entity to the DatastoreService, either now or in the 
+    // next batch of comments.
+    if (commentWriter != null) {
+      commentEntity = commentWriter.write(commentEntity, request.getSession());
+    } else {
+      DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+      datastore.put(commentEntity);
+    }
+    RecentCommentsCache.getInstance().invalidate();
 
     // Redirect back to the HTML page.
     response.sendRedirect("/");
@@ -193,14 +366,31 @@ public class DataServlet extends HttpServlet {
    * Set the max number of comments that can be shown (value between 1 and 50).
    */
   private void setCommentMax(HttpServletRequest request, HttpServletResponse response) throws IOException {
-
-    this.commentMax = 
-      Integer.parseInt(getParameter(request, COMMENT_MAX, "" + this.commentMax));
+    int newCommentMax = parseCommentMax(getParameter(request, COMMENT_MAX, "" + commentMax));
+    if (newCommentMax < 1) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid comment max.");
+      return;
+    }
+    commentMax = newCommentMax;
 
     // Redirect back to the HTML page.
     response.sendRedirect("/");
   }
 
+  /**
+   * Returns the comment max given by the client, lowered to at most 
+   * {@code RecentCommentsCache.MAX_PAGE_SIZE}, or -1 if it is not a positive 
+   * whole number.
+   */
+  private static int parseCommentMax(String value) {
+    try {
+      int max = Integer.parseInt(value);
+      return max < 1 ? -1 : Math.min(max, RecentCommentsCache.MAX_PAGE_SIZE);
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
   /**
    * @return the request parameter, or the default value if the parameter
    *         was not specified by the client
@@ -216,7 +406,7 @@ public class DataServlet extends HttpServlet {
   /**
    * Inner class for the Comments posted by users on the portfolio site.
    */
-  class Comment {
+  static class Comment {
     // The ID is not required for creating a Comment Entity.
     // The default ID of "0" means the Comment object is used to make an Entity.
     // Otherwise, the ID is an Entity property necessary to delete the Comment. 
@@ -252,10 +442,191 @@ public class DataServlet extends HttpServlet {
     }
   }
 
+  /**
+   * Inner class for a page of Comments, along with the opaque token that 
+   * fetches the following page (null if there are no more comments).
+   */
+  static class CommentPage {
+    private List<Comment> comments;
+    private String nextPageToken;
+
+    private CommentPage(List<Comment> comments, String nextPageToken) {
+      this.comments = comments;
+      this.nextPageToken = nextPageToken;
+    }
+  }
+
+  /**
+   * Reads and writes a CommentPage as JSON.
+   */
+  static final class CommentPageAdapter extends TypeAdapter<CommentPage> {
+    private final CommentAdapter commentAdapter = new CommentAdapter();
+
+    @Override
+    public void write(JsonWriter out, CommentPage page) throws IOException {
+      if (page == null) {
+        out.nullValue();
+        return;
+      }
+      out.beginObject();
+      out.name("comments").beginArray();
+      for (Comment comment : page.comments) {
+        commentAdapter.write(out, comment);
+      }
+      out.endArray();
+      out.name("nextPageToken").value(page.nextPageToken);
+      out.endObject();
+    }
+
+    @Override
+    public CommentPage read(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      List<Comment> comments = new ArrayList<>();
+      String nextPageToken = null;
+      in.beginObject();
+      while (in.hasNext()) {
+        String name = in.nextName();
+        if (name.equals("comments") && in.peek() != JsonToken.NULL) {
+          in.beginArray();
+          while (in.hasNext()) {
+            comments.add(commentAdapter.read(in));
+          }
+          in.endArray();
+        } else if (name.equals("nextPageToken")) {
+          nextPageToken = readString(in);
+        } else {
+          in.skipValue();
+        }
+      }
+      in.endObject();
+      return new CommentPage(comments, nextPageToken);
+    }
+  }
+
+  /**
+   * Reads and writes a Comment as JSON.
+   */
+  static final class CommentAdapter extends TypeAdapter<Comment> {
+    // Gson's own date adapter, so dates look the same as before.
+    private static final TypeAdapter<Date> DATE_ADAPTER = new Gson().getAdapter(Date.class);
+
+    private final UserAdapter userAdapter = new UserAdapter();
+
+    @Override
+    public void write(JsonWriter out, Comment comment) throws IOException {
+      if (comment == null) {
+        out.nullValue();
+        return;
+      }
+      out.beginObject();
+      out.name("id").value(comment.id);
+      out.name("text").value(comment.text);
+      out.name("date");
+      DATE_ADAPTER.write(out, comment.date);
+      out.name("user");
+      userAdapter.write(out, comment.user);
+      out.endObject();
+    }
+
+    @Override
+    public Comment read(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      long id = 0;
+      String text = null;
+      Date date = null;
+      User user = null;
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "id":
+            id = in.nextLong();
+            break;
+          case "text":
+            text = readString(in);
+            break;
+          case "date":
+            date = DATE_ADAPTER.read(in);
+            break;
+          case "user":
+            user = userAdapter.read(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return new Comment(id, text, date, user);
+    }
+  }
+
+  /**
+   * Reads and writes a User as JSON.
+   */
+  static final class UserAdapter extends TypeAdapter<User> {
+    @Override
+    public void write(JsonWriter out, User user) throws IOException {
+      if (user == null) {
+        out.nullValue();
+        return;
+      }
+      out.beginObject();
+      out.name("emailAddress").value(user.emailAddress);
+      out.name("id").value(user.id);
+      out.name("username").value(user.username);
+      out.endObject();
+    }
+
+    @Override
+    public User read(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      String emailAddress = null;
+      String id = null;
+      String username = null;
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "emailAddress":
+            emailAddress = readString(in);
+            break;
+          case "id":
+            id = readString(in);
+            break;
+          case "username":
+            username = readString(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return new User(emailAddress, id, username);
+    }
+  }
+
+  /**
+   * Reads a string value that may be null.
+   */
+  static String readString(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    return in.nextString();
+  }
+
   /**
    * Inner class for the User that is currently logged in.
    */
-  class User {
+  static class User {
     // The fields that hold relevant user data.
     // The id is used to keep the username up-to-date.
     private String emailAddress;
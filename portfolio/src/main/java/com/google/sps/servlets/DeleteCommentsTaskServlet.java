@@ -0,0 +1,217 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.appengine.api.datastore.AsyncDatastoreService;
+import com.google.appengine.api.datastore.Cursor;
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.EntityNotFoundException;
+import com.google.appengine.api.datastore.FetchOptions;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
+import com.google.appengine.api.datastore.PreparedQuery;
+import com.google.appengine.api.datastore.Query;
+import com.google.appengine.api.datastore.QueryResultList;
+import com.google.appengine.api.datastore.Transaction;
+import com.google.appengine.api.taskqueue.QueueFactory;
+import com.google.appengine.api.taskqueue.TaskOptions;
+import com.google.sps.data.RecentCommentsCache;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Task queue servlet that deletes all comments in the background. Each task
+ * reads a bounded number of key-only batches, deletes them concurrently,
+ * records the progress of the job, and queues the next task at the cursor
+ * where it stopped. No request ever holds more than one task's worth of keys.
+ */
+@WebServlet("/tasks/delete-comments")
+public class DeleteCommentsTaskServlet extends HttpServlet {
+
+  public static final String TASK_URL = "/tasks/delete-comments";
+
+  // String identifiers for DeleteJob attributes.
+  public static final String JOB_NAME = "DeleteJob";
+  public static final String JOB_DELETED = "deleted";
+  public static final String JOB_DONE = "done";
+  public static final String JOB_CREATED = "created";
+
+  // Cursor where the job's next task starts, which marks the tasks whose
+  // progress has already been recorded.
+  public static final String JOB_CURSOR = "cursor";
+
+  // Request parameters of each task.
+  public static final String JOB_PARAMETER = "job";
+  public static final String CURSOR_PARAMETER = "cursor";
+
+  // Datastore deletes at most 500 entities at a time.
+  public static final int BATCH_SIZE = 500;
+
+  // Batches deleted concurrently by one task, which bounds its keys in memory.
+  public static final int BATCHES_PER_TASK = 10;
+
+  // Only set on requests made by the task queue.
+  private static final String QUEUE_NAME_HEADER = "X-AppEngine-QueueName";
+
+  /**
+   * Starts a job deleting all comments, and returns the id used to poll it.
+   */
+  public static String startJob() {
+    String jobId = UUID.randomUUID().toString();
+    Entity job = new Entity(JOB_NAME, jobId);
+    job.setProperty(JOB_DELETED, 0L);
+    job.setProperty(JOB_DONE, false);
+    job.setProperty(JOB_CREATED, new Date());
+    job.setUnindexedProperty(JOB_CURSOR, "");
+    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+    datastore.put(job);
+
+    queueTask(null, jobId, null);
+    return jobId;
+  }
+
+  /**
+   * Returns the DeleteJob entity for the job, or null if there is no such job.
+   */
+  public static Entity getJob(String jobId) {
+    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+    try {
+      return datastore.get(KeyFactory.createKey(JOB_NAME, jobId));
+    } catch (EntityNotFoundException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    // Only the task queue may run tasks.
+    if (request.getHeader(QUEUE_NAME_HEADER) == null) {
+      response.sendError(HttpServletResponse.SC_FORBIDDEN);
+      return;
+    }
+
+    String jobId = request.getParameter(JOB_PARAMETER);
+    Entity job = jobId == null ? null : getJob(jobId);
+    if (job == null) {
+      // Nothing to resume; returning success stops the task from being retried.
+      return;
+    }
+
+    Cursor cursor = null;
+    String cursorParameter = request.getParameter(CURSOR_PARAMETER);
+    if (cursorParameter != null) {
+      cursor = Cursor.fromWebSafeString(cursorParameter);
+    }
+
+    // Read the keys a batch at a time, starting a delete for each batch without
+    // waiting for the previous one to finish.
+    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+    AsyncDatastoreService asyncDatastore = DatastoreServiceFactory.getAsyncDatastoreService();
+    PreparedQuery results = datastore.prepare(new Query(DataServlet.COMMENT_NAME).setKeysOnly());
+    List<Future<Void>> deletes = new ArrayList<>();
+    long deleted = 0;
+    boolean done = false;
+    for (int i = 0; i < BATCHES_PER_TASK && !done; i++) {
+      FetchOptions fetchOptions = FetchOptions.Builder.withLimit(BATCH_SIZE);
+      if (cursor != null) {
+        fetchOptions.startCursor(cursor);
+      }
+      QueryResultList<Entity> batch = results.asQueryResultList(fetchOptions);
+
+      List<Key> keys = new ArrayList<>();
+      for (Entity entity : batch) {
+        keys.add(entity.getKey());
+      }
+      if (!keys.isEmpty()) {
+        deletes.add(asyncDatastore.delete(keys));
+        deleted += keys.size();
+      }
+
+      cursor = batch.getCursor();
+      done = batch.size() < BATCH_SIZE;
+    }
+
+    // Wait for this task's deletes. A failure fails the task, and the task queue
+    // retries it from the same cursor (deletes of missing keys are harmless).
+    for (Future<Void> delete : deletes) {
+      try {
+        delete.get();
+      } catch (InterruptedException | ExecutionException e) {
+        throw new IOException("Failed to delete comments for job " + jobId, e);
+      }
+    }
+
+    // Record the progress and queue the next task in one transaction, so that
+    // a retried task never records its deletes twice or queues two next tasks.
+    String startCursor = cursorParameter == null ? "" : cursorParameter;
+    Transaction transaction = datastore.beginTransaction();
+    try {
+      job = datastore.get(transaction, job.getKey());
+      Object nextCursor = job.getProperty(JOB_CURSOR);
+      if (nextCursor != null && !startCursor.equals(nextCursor)) {
+        // An earlier attempt of this task already recorded its progress.
+        return;
+      }
+      job.setProperty(JOB_DELETED, (Long) job.getProperty(JOB_DELETED) + deleted);
+      job.setProperty(JOB_DONE, done);
+      job.setUnindexedProperty(JOB_CURSOR, cursor.toWebSafeString());
+      datastore.put(transaction, job);
+      if (!done) {
+        // Carry on where this task stopped.
+        queueTask(transaction, jobId, cursor);
+      }
+      transaction.commit();
+    } catch (EntityNotFoundException e) {
+      // The job is gone, so there is nothing to record.
+      return;
+    } finally {
+      if (transaction.isActive()) {
+        transaction.rollback();
+      }
+    }
+    if (done) {
+      RecentCommentsCache.getInstance().invalidate();
+    }
+  }
+
+  /**
+   * Queue the task that deletes the job's next batches, starting at cursor. If
+   * there is a transaction, the task is only queued when it commits.
+   */
+  private static void queueTask(Transaction transaction, String jobId, Cursor cursor) {
+    TaskOptions task = TaskOptions.Builder.withUrl(TASK_URL)
+      .method(TaskOptions.Method.POST)
+      .param(JOB_PARAMETER, jobId);
+    if (cursor != null) {
+      task.param(CURSOR_PARAMETER, cursor.toWebSafeString());
+    }
+    if (transaction != null) {
+      QueueFactory.getDefaultQueue().add(transaction, task);
+    } else {
+      QueueFactory.getDefaultQueue().add(task);
+    }
+  }
+}
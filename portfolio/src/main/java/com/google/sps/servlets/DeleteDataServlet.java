@@ -17,22 +17,23 @@ package com.google.sps.servlets;
 import com.google.appengine.api.datastore.DatastoreService;
 import com.google.appengine.api.datastore.DatastoreServiceFactory;
 import com.google.appengine.api.datastore.Entity;
-import com.google.appengine.api.datastore.PreparedQuery;
-import com.google.appengine.api.datastore.Query;
 import com.google.appengine.api.datastore.Key;
 import com.google.appengine.api.datastore.KeyFactory;
+import com.google.gson.Gson;
+import com.google.sps.data.CommentWriter;
+import com.google.sps.data.RecentCommentsCache;
 import java.io.IOException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.util.ArrayList;
-import java.util.List;
 
 /** Servlet that handles deleting comment data. */
 @WebServlet("/delete-data")
 public class DeleteDataServlet extends HttpServlet {
 
+  private static final Gson GSON = new Gson();
+
   @Override
   public void doPost(HttpServletRequest request, HttpServletResponse response) 
     throws IOException {
@@ -40,8 +41,28 @@ public class DeleteDataServlet extends HttpServlet {
     if (request.getParameter("id") != null) {
       deleteComment(request);
     } else {
-      deleteAllComments();
+      deleteAllComments(request, response);
     }
+    RecentCommentsCache.getInstance().invalidate();
+  }
+
+  /**
+   * Returns the progress of the delete-all job identified by the "job" parameter.
+   */
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) 
+    throws IOException {
+    String jobId = request.getParameter(DeleteCommentsTaskServlet.JOB_PARAMETER);
+    Entity job = jobId == null ? null : DeleteCommentsTaskServlet.getJob(jobId);
+    if (job == null) {
+      response.sendError(HttpServletResponse.SC_NOT_FOUND, "No such delete job.");
+      return;
+    }
+
+    long deleted = (Long) job.getProperty(DeleteCommentsTaskServlet.JOB_DELETED);
+    boolean done = (Boolean) job.getProperty(DeleteCommentsTaskServlet.JOB_DONE);
+    response.setContentType("application/json");
+    response.getWriter().println(GSON.toJson(new DeleteJobStatus(jobId, deleted, done)));
   }
 
   /**
@@ -51,25 +72,50 @@ public class DeleteDataServlet extends HttpServlet {
     long id = Long.parseLong(request.getParameter("id"));
 
     Key commentEntityKey = KeyFactory.createKey(DataServlet.COMMENT_NAME, id);
+
+    // Make sure a comment that is not yet saved will not be saved afterwards.
+    CommentWriter commentWriter = DataServlet.getCommentWriter();
+    if (commentWriter != null) {
+      commentWriter.cancel(commentEntityKey, request.getSession(false));
+    }
+
     DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
     datastore.delete(commentEntityKey);
   }
 
   /**
    * Delete all comments present in datastore (called when no ID is passed in).
+   * The comments are deleted in the background, and the response holds the id
+   * of the job so that its progress can be polled.
    */
-  private void deleteAllComments() {
-    // Get the keys of all comment entities in datastore.
-    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
-    Query query = new Query(DataServlet.COMMENT_NAME);
-    PreparedQuery results = datastore.prepare(query);
-
-    // Remove all comment entities by key from datastore.
-    List<Key> keys = new ArrayList<>();
-    for(Entity commentEntity : results.asIterable()) {
-      keys.add(commentEntity.getKey());
-    } 
-    datastore.delete(keys);
+  private void deleteAllComments(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    // Drop the comments that are not yet saved.
+    CommentWriter commentWriter = DataServlet.getCommentWriter();
+    if (commentWriter != null) {
+      commentWriter.cancelAll(request.getSession(false));
+    }
+
+    // Remove all comment entities from datastore in the background.
+    String jobId = DeleteCommentsTaskServlet.startJob();
+
+    response.setStatus(HttpServletResponse.SC_ACCEPTED);
+    response.setContentType("application/json");
+    response.getWriter().println(GSON.toJson(new DeleteJobStatus(jobId, 0, false)));
+  }
+
+  /**
+   * Inner class that holds the progress of a job deleting all comments.
+   */
+  class DeleteJobStatus {
+    private String jobId;
+    private long deleted;
+    private boolean done;
+
+    private DeleteJobStatus(String jobId, long deleted, boolean done) {
+      this.jobId = jobId;
+      this.deleted = deleted;
+      this.done = done;
+    }
   }
 
 }
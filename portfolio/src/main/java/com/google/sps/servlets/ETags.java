@@ -0,0 +1,104 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Helpers for answering conditional GET requests. A servlet builds a strong
+ * ETag from the versions its response depends on, and answers 304 Not Modified
+ * when the client already holds the response with that ETag.
+ */
+final class ETags {
+
+  private ETags() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns a strong ETag identifying a response built from the given parts.
+   */
+  static String create(String... parts) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256.
+      throw new IllegalStateException(e);
+    }
+    for (String part : parts) {
+      digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+      // Separate the parts, so that ("ab", "c") and ("a", "bc") differ.
+      digest.update((byte) 0);
+    }
+
+    // Half of the digest is plenty to tell versions apart.
+    byte[] hash = digest.digest();
+    StringBuilder etag = new StringBuilder("\"");
+    for (int i = 0; i < 16; i++) {
+      etag.append(String.format("%02x", hash[i]));
+    }
+    return etag.append('"').toString();
+  }
+
+  /**
+   * Returns true if the client's If-None-Match header lists the ETag, meaning
+   * the client's copy of the response is current.
+   */
+  static boolean isNotModified(HttpServletRequest request, String etag) {
+    String ifNoneMatch = request.getHeader("If-None-Match");
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      candidate = candidate.trim();
+      // If-None-Match uses weak comparison, so the weak prefix is ignored.
+      if (candidate.startsWith("W/")) {
+        candidate = candidate.substring(2);
+      }
+      if (candidate.equals("*") || candidate.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Sets the ETag on the response, and asks clients to revalidate their copy
+   * with it before reusing it.
+   */
+  static void setETag(HttpServletResponse response, String etag) {
+    response.setHeader("ETag", etag);
+    response.setHeader("Cache-Control", "private, no-cache");
+  }
+
+  /**
+   * Answers 304 Not Modified if the client's copy is current. Returns true if
+   * it did, in which case the servlet must not write a body.
+   */
+  static boolean answerIfNotModified(HttpServletRequest request, HttpServletResponse response,
+    String etag) {
+    if (!isNotModified(request, etag)) {
+      return false;
+    }
+    setETag(response, etag);
+    response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    return true;
+  }
+}
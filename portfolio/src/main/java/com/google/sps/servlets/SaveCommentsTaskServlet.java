@@ -0,0 +1,54 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.data.CommentWriter;
+import java.io.IOException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Task queue servlet that saves the comments queued by write-behind posting,
+ * in one batched put per task. A failed put fails the task, and the task queue
+ * retries it. This runs whether or not write-behind is turned on, so comments
+ * queued before it was turned off are still saved.
+ */
+@WebServlet("/tasks/save-comments")
+public class SaveCommentsTaskServlet extends HttpServlet {
+
+  public static final String TASK_URL = "/tasks/save-comments";
+
+  // Only set on requests made by the task queue.
+  private static final String QUEUE_NAME_HEADER = "X-AppEngine-QueueName";
+
+  private static final CommentWriter commentWriter =
+    new CommentWriter(DataServlet.COMMENT_NAME, TASK_URL);
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    // Only the task queue may run tasks.
+    if (request.getHeader(QUEUE_NAME_HEADER) == null) {
+      response.sendError(HttpServletResponse.SC_FORBIDDEN);
+      return;
+    }
+
+    // A full batch may have left comments behind, so save those next.
+    if (commentWriter.saveQueued()) {
+      commentWriter.scheduleNextBatch();
+    }
+  }
+}
@@ -87,15 +87,7 @@ function fadeDiv(classOrIdName) {
 // Triggered upon DOM load.
 $(document).ready(() => {
   // Add servlet information to frontend.
-  addAuth();
-  isLoggedIn().then(loggedIn => {
-    // Add comments to frontend only if user is logged in.
-    if (loggedIn) {
-      addComments();
-    } else {
-      hideComments();
-    }
-  });
+  bootstrap();
 
   // Add frontend styling.
   fadeDiv('.project');
@@ -121,17 +113,87 @@ $(document).ready(() => {
   });
 });
 
+// The token of the next page of comments; null when no comments remain.
+let nextPageToken = null;
+
+/*
+ * Fetches the auth information and, if the user is logged in, the newest 
+ * comments (limited to the 'comment max') from the server in one request, 
+ * and displays them on the frontend.
+ */
+function bootstrap() {
+  fetch('/bootstrap').then(response => response.json()).then((data) => {
+    addAuth(data.auth);
+
+    // Add comments to frontend only if user is logged in.
+    if (data.auth.loggedIn) {
+      addCommentPage(data.comments);
+      listenForComments(data.commentVersion);
+    } else {
+      hideComments();
+    }
+  });
+}
+
 /*
- * Fetches comment data from server (limiting comments to the 'comment max'),
- * builds, styles, and displays comments on the frontend.
+ * Fetches the next page of comments from the server, and appends them below 
+ * the comments already shown.
  */
-function addComments() {
-  fetch('/data').then(response => response.json()).then((comments) => {
-    const commentContainer = document.getElementById('comment-container');
-    comments.forEach((comment) => {
-      commentContainer.append(createComment(comment));
+function addMoreComments() {
+  if (nextPageToken === null) {
+    return;
+  }
+  const params = new URLSearchParams();
+  params.append('page-token', nextPageToken);
+  fetch('/data?' + params.toString()).then(response => response.json())
+    .then((page) => {
+      addCommentPage(page);
     });
+}
+
+/*
+ * Displays a page of comments, and shows the "more comments" button only if 
+ * another page of comments remains.
+ */
+function addCommentPage(page) {
+  const commentContainer = document.getElementById('comment-container');
+  page.comments.forEach((comment) => {
+    commentContainer.append(createComment(comment));
   });
+
+  // Keep track of where the next page begins.
+  nextPageToken = page.nextPageToken === undefined ? null : page.nextPageToken;
+  const moreCommentsButton = document.getElementById('comment-more');
+  moreCommentsButton.style.display = nextPageToken === null ? 'none' : 'inline-block';
+}
+
+// How often the page checks whether the comments have changed.
+const COMMENT_POLL_INTERVAL_MS = 10000;
+
+/*
+ * Checks the comment version every few seconds, and reloads the newest 
+ * comments whenever another user posts or deletes one. Hidden pages skip the 
+ * check, so only pages being looked at poll the server.
+ */
+function listenForComments(version) {
+  let commentVersion = version;
+  setInterval(() => {
+    if (document.hidden) {
+      return;
+    }
+    fetch('/comment-version').then(response => response.json())
+      .then((data) => {
+        if (data.version === commentVersion) {
+          return;
+        }
+        commentVersion = data.version;
+        return fetch('/data').then(response => response.json())
+          .then((page) => {
+            document.getElementById('comment-container').innerHTML = '';
+            addCommentPage(page);
+          });
+      });
+  }, COMMENT_POLL_INTERVAL_MS);
 }
 
 /** 
@@ -140,6 +202,7 @@ function addComments() {
 function createComment(comment) {
   const commentElement = document.createElement('li');
   commentElement.className = 'comment-element';
+  commentElement.dataset.id = comment.id;
 
   // Create span element holding text.
   const textElement = document.createElement('span');
@@ -214,62 +277,46 @@ function checkSubmit(inputElementId, submitElementId) {
   }
 }
 
-/**
- * Return Promise (w/ boolean) that indicates whether the user is logged in.
- */
-function isLoggedIn() {
-  return new Promise((resolve, reject) => {
-    fetch('/auth').then(response => response.json()).then((authObj) => {
-      resolve(authObj.loggedIn);
-    }).catch((error) => {
-      reject(error);
-    })
-  });
-}
-
 /**
  * Add the user login/logout status to page, along with email (if applicable).
  * Provides options to login and logout.
  */
-function addAuth() {
-  fetch('/auth').then(response => response.json()).then((authObj) => {
-    let authContainerDiv = document.getElementById('auth-container');
-
-    // Dynamically construct auth information based on user login status.
-    if (authObj.loggedIn) {
-      // Create paragraph element holding the username.
-      const displayUsername = document.createElement('p');
-      displayUsername.innerText = 'Username: ' + authObj.username;
-
-      // Create paragraph element holding the email.
-      const displayEmail = document.createElement('p');
-      displayEmail.innerText = 'Email: ' + authObj.email;
-
-      // Create link element that allows users to log out.
-      const logoutLink = document.createElement('a');
-      logoutLink.innerText = 'Logout';
-      logoutLink.href = authObj.logoutUrl;
-
-      // Add the components to the auth-container div.
-      authContainerDiv.append(displayUsername);
-      authContainerDiv.append(displayEmail);
-      authContainerDiv.append(logoutLink);
-    } else {
-      // Hide the "change username" container.
-      const changeUsernameContainer = 
-        document.getElementById('auth-username-container');
-      changeUsernameContainer.style.display = 'none';
-
-      // Create link element that allows users to log in.
-      const loginLink = document.createElement('a');
-      loginLink.innerText = 'Login';
-      loginLink.href = authObj.loginUrl;
-      
-      // Add the login link to the auth-container div.
-      authContainerDiv.append(loginLink);
-    }
-
-  });
+function addAuth(authObj) {
+  let authContainerDiv = document.getElementById('auth-container');
+
+  // Dynamically construct auth information based on user login status.
+  if (authObj.loggedIn) {
+    // Create paragraph element holding the username.
+    const displayUsername = document.createElement('p');
+    displayUsername.innerText = 'Username: ' + authObj.username;
+
+    // Create paragraph element holding the email.
+    const displayEmail = document.createElement('p');
+    displayEmail.innerText = 'Email: ' + authObj.email;
+
+    // Create link element that allows users to log out.
+    const logoutLink = document.createElement('a');
+    logoutLink.innerText = 'Logout';
+    logoutLink.href = authObj.logoutUrl;
+
+    // Add the components to the auth-container div.
+    authContainerDiv.append(displayUsername);
+    authContainerDiv.append(displayEmail);
+    authContainerDiv.append(logoutLink);
+  } else {
+    // Hide the "change username" container.
+    const changeUsernameContainer = 
+      document.getElementById('auth-username-container');
+    changeUsernameContainer.style.display = 'none';
+
+    // Create link element that allows users to log in.
+    const loginLink = document.createElement('a');
+    loginLink.innerText = 'Login';
+    loginLink.href = authObj.loginUrl;
+    
+    // Add the login link to the auth-container div.
+    authContainerDiv.append(loginLink);
+  }
 }
 
 /*
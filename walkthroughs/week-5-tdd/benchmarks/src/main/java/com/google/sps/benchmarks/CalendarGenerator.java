@@ -0,0 +1,94 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.Event;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates random calendars for the benchmarks. The same seed always gives the same calendar, so
+ * runs can be compared with each other.
+ */
+public final class CalendarGenerator {
+  private static final int MINUTES_IN_DAY = TimeRange.WHOLE_DAY.duration();
+
+  private final Random random;
+  private final int peopleCount;
+
+  /**
+   * Creates a generator whose events and requests draw from {@code peopleCount} people.
+   */
+  public CalendarGenerator(long seed, int peopleCount) {
+    this.random = new Random(seed);
+    this.peopleCount = peopleCount;
+  }
+
+  /**
+   * Returns {@code eventCount} events of {@code attendeesPerEvent} people each. The events are as
+   * long as needed for each person to be busy for about {@code density} of the day, so 0.5 means
+   * half the day, ignoring overlaps.
+   */
+  public List<Event> generateEvents(int eventCount, int attendeesPerEvent, double density) {
+    // Each person attends eventCount * attendeesPerEvent / peopleCount events on average.
+    double eventsPerPerson = (double) eventCount * attendeesPerEvent / peopleCount;
+    int averageDuration =
+        (int) Math.max(1, Math.min(MINUTES_IN_DAY, density * MINUTES_IN_DAY / eventsPerPerson));
+
+    List<Event> events = new ArrayList<>(eventCount);
+    for (int i = 0; i < eventCount; i++) {
+      int duration = 1 + random.nextInt(2 * averageDuration);
+      int start = random.nextInt(Math.max(1, MINUTES_IN_DAY - duration));
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration),
+          generatePeople(attendeesPerEvent)));
+    }
+    return events;
+  }
+
+  /**
+   * Returns a request for {@code attendeeCount} people and a duration of up to two hours.
+   */
+  public MeetingRequest generateRequest(int attendeeCount) {
+    return new MeetingRequest(generatePeople(attendeeCount), 15 + random.nextInt(106));
+  }
+
+  /**
+   * Returns the names of {@code count} different people.
+   */
+  public Set<String> generatePeople(int count) {
+    Set<String> people = new LinkedHashSet<>();
+    while (people.size() < Math.min(count, peopleCount)) {
+      people.add(getPerson(random.nextInt(peopleCount)));
+    }
+    return people;
+  }
+
+  /**
+   * Returns a random range of the day.
+   */
+  public TimeRange generateRange() {
+    int start = random.nextInt(MINUTES_IN_DAY);
+    return TimeRange.fromStartDuration(start, random.nextInt(MINUTES_IN_DAY - start + 1));
+  }
+
+  private static String getPerson(int index) {
+    return "Person " + index;
+  }
+}
@@ -0,0 +1,107 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.AttendeeAvailabilityIndex;
+import com.google.sps.BitsetMeetingQuery;
+import com.google.sps.Event;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures answering a meeting request against a generated calendar, with each of the engines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindMeetingQueryBenchmark {
+  // The number of people the events and requests are drawn from.
+  private static final int PEOPLE = 500;
+
+  // The number of different requests cycled through, so that no one request is all that's tested.
+  private static final int REQUESTS = 64;
+
+  @Param({"100", "1000", "10000"})
+  public int eventCount;
+
+  @Param({"2", "8"})
+  public int attendeesPerEvent;
+
+  @Param({"3", "30"})
+  public int requestAttendees;
+
+  // The fraction of the day each person is busy for, ignoring overlaps.
+  @Param({"0.2", "0.8"})
+  public double density;
+
+  private List<Event> events;
+  private MeetingRequest[] requests;
+  private FindMeetingQuery findMeetingQuery;
+  private AttendeeAvailabilityIndex index;
+  private BitsetMeetingQuery bitsetMeetingQuery;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    CalendarGenerator generator = new CalendarGenerator(2020, PEOPLE);
+    events = generator.generateEvents(eventCount, attendeesPerEvent, density);
+    requests = new MeetingRequest[REQUESTS];
+    for (int i = 0; i < REQUESTS; i++) {
+      requests[i] = generator.generateRequest(requestAttendees);
+    }
+    findMeetingQuery = new FindMeetingQuery();
+    index = new AttendeeAvailabilityIndex(events);
+    bitsetMeetingQuery = new BitsetMeetingQuery(events);
+  }
+
+  private MeetingRequest nextRequest() {
+    next = (next + 1) % REQUESTS;
+    return requests[next];
+  }
+
+  @Benchmark
+  public Collection<TimeRange> query() {
+    return findMeetingQuery.query(events, nextRequest());
+  }
+
+  @Benchmark
+  public Collection<TimeRange> indexQuery() {
+    return index.query(nextRequest());
+  }
+
+  @Benchmark
+  public Collection<TimeRange> bitsetQuery() {
+    return bitsetMeetingQuery.query(nextRequest());
+  }
+}
@@ -0,0 +1,240 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AttendeeAvailabilityIndex answers meeting requests against a fixed set of events. When it is
+ * built, the busy ranges of every attendee are sorted and merged once, so a query only looks at
+ * the attendees it asks about rather than at every event. The index is read-only once built and
+ * can be shared between threads.
+ */
+public final class AttendeeAvailabilityIndex {
+  private static final long[] NOT_BUSY = new long[0];
+
+  // The sorted and merged busy ranges of each attendee by their id in the {@code
+  // AttendeeDictionary}, packed with {@code FindMeetingQuery.pack}.
+  private final IdTrie<long[]> busyByAttendee;
+
+  // The dictionary entries of the attendees in {@code busyByAttendee}, held so that their ids stay
+  // taken for as long as the index is reachable.
+  private final IdTrie<AttendeeDictionary.Entry> entries;
+
+  // Every index gets the next version from one counter, so no two indexes share a version, even
+  // if they come from different calendars.
+  private static final AtomicLong VERSIONS = new AtomicLong();
+
+  private final long version;
+
+  /**
+   * Creates an index of the busy ranges of everyone attending {@code events}.
+   */
+  public AttendeeAvailabilityIndex(Collection<Event> events) {
+    Map<AttendeeDictionary.Entry, List<TimeRange>> rangesByAttendee = new HashMap<>();
+    int maxId = -1;
+    for (Event event : events) {
+      if (event.getWhen().duration() <= 0) {
+        continue;
+      }
+      int[] ids = event.getAttendeeIds();
+      for (int i = 0; i < ids.length; i++) {
+        rangesByAttendee.computeIfAbsent(event.getAttendeeEntry(i), key -> new ArrayList<>())
+            .add(event.getWhen());
+        maxId = Math.max(maxId, ids[i]);
+      }
+    }
+
+    long[][] busyById = new long[maxId + 1][];
+    AttendeeDictionary.Entry[] entriesById = new AttendeeDictionary.Entry[maxId + 1];
+    for (Map.Entry<AttendeeDictionary.Entry, List<TimeRange>> attendee :
+        rangesByAttendee.entrySet()) {
+      List<TimeRange> ranges = attendee.getValue();
+      long[] busy = new long[ranges.size()];
+      for (int i = 0; i < busy.length; i++) {
+        busy[i] = FindMeetingQuery.pack(ranges.get(i).start(), ranges.get(i).end());
+      }
+      busyById[attendee.getKey().getId()] = busy;
+      entriesById[attendee.getKey().getId()] = attendee.getKey();
+    }
+    this.busyByAttendee = sortAndMerge(busyById);
+    this.entries = IdTrie.of(entriesById);
+    this.version = VERSIONS.incrementAndGet();
+  }
+
+  /**
+   * Creates an index from the busy ranges of each attendee, packed with {@code
+   * FindMeetingQuery.pack} and indexed by their id in {@code entriesById}, which holds each
+   * attendee's dictionary entry. Attendees who aren't busy may have null ranges. The arrays are
+   * sorted and merged in place.
+   */
+  AttendeeAvailabilityIndex(long[][] busyById, AttendeeDictionary.Entry[] entriesById) {
+    this(sortAndMerge(busyById), IdTrie.of(entriesById));
+  }
+
+  private static IdTrie<long[]> sortAndMerge(long[][] busyById) {
+    for (int id = 0; id < busyById.length; id++) {
+      long[] busy = busyById[id];
+      if (busy != null) {
+        Arrays.sort(busy);
+        busyById[id] = busy.length == 0 ? null : merge(busy, busy.length);
+      }
+    }
+    return IdTrie.of(busyById);
+  }
+
+  private AttendeeAvailabilityIndex(
+      IdTrie<long[]> busyByAttendee, IdTrie<AttendeeDictionary.Entry> entries) {
+    this.busyByAttendee = busyByAttendee;
+    this.entries = entries;
+    this.version = VERSIONS.incrementAndGet();
+  }
+
+  /**
+   * Returns the version of this index, which no other index in this JVM has. An index made by
+   * {@code withBusy} has a later version than the index it was made from.
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Returns a copy of this index in which the busy ranges of the attendees in {@code changed},
+   * keyed by dictionary entry, are replaced, and an attendee with no busy ranges left is dropped.
+   * Only the path to each changed attendee is copied, so this takes O(log a) time per change for a
+   * attendees, and the other attendees' ranges are shared with this index.
+   */
+  AttendeeAvailabilityIndex withBusy(Map<AttendeeDictionary.Entry, long[]> changed) {
+    IdTrie<long[]> busyByAttendee = this.busyByAttendee;
+    IdTrie<AttendeeDictionary.Entry> entries = this.entries;
+    for (Map.Entry<AttendeeDictionary.Entry, long[]> attendee : changed.entrySet()) {
+      int id = attendee.getKey().getId();
+      long[] busy = attendee.getValue();
+      busyByAttendee = busyByAttendee.with(id, busy.length == 0 ? null : busy);
+      entries = entries.with(id, busy.length == 0 ? null : attendee.getKey());
+    }
+    return new AttendeeAvailabilityIndex(busyByAttendee, entries);
+  }
+
+  /**
+   * Returns the same ranges as {@code FindMeetingQuery.query} over the indexed events. A query for
+   * k attendees with b busy ranges between them takes O(b log k) time.
+   */
+  public Collection<TimeRange> query(MeetingRequest request) {
+    long[] busy = mergeAttendees(request.getAttendees());
+    return FindMeetingQuery.findFreeRanges(busy, request.getDuration());
+  }
+
+  /**
+   * Returns the same ranges as {@code FindMeetingQuery.queryWithOptionalAttendees} over the
+   * indexed events.
+   */
+  public Collection<TimeRange> queryWithOptionalAttendees(MeetingRequest request) {
+    Collection<String> required = request.getAttendees();
+    Collection<String> optional = request.getOptionalAttendees();
+
+    long[] requiredBusy = mergeAttendees(required);
+    List<long[]> optionalBusy = new ArrayList<>();
+    for (String attendee : optional) {
+      long[] busy = getBusy(attendee);
+      if (busy.length > 0) {
+        optionalBusy.add(busy);
+      }
+    }
+    return FindMeetingQuery.findBestRanges(requiredBusy, requiredBusy.length, !required.isEmpty(),
+        optionalBusy, optional.size(), request.getDuration());
+  }
+
+  /**
+   * Returns the sorted and merged busy ranges of {@code attendee}, packed with {@code
+   * FindMeetingQuery.pack}. The returned array must not be modified.
+   */
+  long[] getBusy(String attendee) {
+    // A name without an id can't be attending any event.
+    return getBusy(AttendeeDictionary.knownIdOf(attendee));
+  }
+
+  /**
+   * Returns the busy ranges of the attendee with the given id, as by {@code getBusy(String)}.
+   */
+  long[] getBusy(int attendee) {
+    long[] busy = busyByAttendee.get(attendee);
+    return busy == null ? NOT_BUSY : busy;
+  }
+
+  /**
+   * Returns the union of the busy ranges of {@code attendees}, sorted and merged. The attendees'
+   * lists are already sorted, so they are merged through a heap holding the next range of each.
+   */
+  long[] mergeAttendees(Collection<String> attendees) {
+    List<long[]> lists = new ArrayList<>();
+    int total = 0;
+    for (String attendee : attendees) {
+      long[] busy = getBusy(attendee);
+      if (busy.length > 0) {
+        lists.add(busy);
+        total += busy.length;
+      }
+    }
+    if (lists.size() == 1) {
+      return lists.get(0);
+    }
+
+    // Each cursor is {list, position}, ordered by the range it points at.
+    PriorityQueue<int[]> heap = new PriorityQueue<>(Math.max(1, lists.size()),
+        (a, b) -> Long.compare(lists.get(a[0])[a[1]], lists.get(b[0])[b[1]]));
+    for (int i = 0; i < lists.size(); i++) {
+      heap.add(new int[] {i, 0});
+    }
+    long[] merged = new long[total];
+    int count = 0;
+    while (!heap.isEmpty()) {
+      int[] cursor = heap.poll();
+      long[] list = lists.get(cursor[0]);
+      merged[count++] = list[cursor[1]];
+      if (++cursor[1] < list.length) {
+        heap.add(cursor);
+      }
+    }
+    return merge(merged, count);
+  }
+
+  /**
+   * Merges the overlapping and touching ranges among the first {@code count} sorted ranges, and
+   * returns an array of just the merged ranges.
+   */
+  static long[] merge(long[] sortedBusy, int count) {
+    int merged = 0;
+    for (int i = 0; i < count; i++) {
+      int start = FindMeetingQuery.unpackStart(sortedBusy[i]);
+      int end = FindMeetingQuery.unpackEnd(sortedBusy[i]);
+      if (merged > 0 && start <= FindMeetingQuery.unpackEnd(sortedBusy[merged - 1])) {
+        int previousStart = FindMeetingQuery.unpackStart(sortedBusy[merged - 1]);
+        int previousEnd = FindMeetingQuery.unpackEnd(sortedBusy[merged - 1]);
+        sortedBusy[merged - 1] = FindMeetingQuery.pack(previousStart, Math.max(previousEnd, end));
+      } else {
+        sortedBusy[merged++] = FindMeetingQuery.pack(start, end);
+      }
+    }
+    return merged == sortedBusy.length ? sortedBusy : Arrays.copyOf(sortedBusy, merged);
+  }
+}
@@ -0,0 +1,213 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * AttendeeDictionary gives every attendee name a small {@code int} id, so that sets of attendees
+ * can be stored as sorted {@code int[]} arrays and compared without hashing strings. Ids are given
+ * out in order, starting at 0.
+ *
+ * <p>A name keeps its id only while its {@code Entry} is reachable, so whatever holds ids must also
+ * hold their entries, as events do through their attendee sets. Once nothing holds a name's entry,
+ * the name is dropped, so a long-lived process only keeps the names of the events it still has. A
+ * name that comes back gets a new id. Ids are never given out twice, so an id that is still held
+ * somewhere can't come to mean another name.
+ *
+ * <p>Only the attendees of events are given an id, when the event is created. Names from anywhere
+ * else, such as the body of a request, are only looked up with {@code knownIdOf} and {@code
+ * knownIdsOf}, which never add to the dictionary.
+ */
+public final class AttendeeDictionary {
+  private static final ConcurrentMap<String, EntryReference> entries = new ConcurrentHashMap<>();
+
+  // The references of entries that are no longer reachable, whose names are to be dropped.
+  private static final ReferenceQueue<Entry> unreachable = new ReferenceQueue<>();
+
+  private static volatile int idCount = 0;
+
+  private AttendeeDictionary() {}
+
+  /**
+   * Returns the entry of {@code name}, giving it the next id if it doesn't have one yet. Only
+   * events, and indexes built without events, should call this.
+   */
+  static Entry entryOf(String name) {
+    Entry entry = get(name);
+    if (entry != null) {
+      return entry;
+    }
+    synchronized (AttendeeDictionary.class) {
+      dropUnreachable();
+      entry = get(name);
+      if (entry == null) {
+        entry = new Entry(name, idCount);
+        // The entry is published before the count grows, so anyone who sees the count can find it.
+        entries.put(name, new EntryReference(entry));
+        idCount = entry.id + 1;
+      }
+      return entry;
+    }
+  }
+
+  /**
+   * Returns the entries of {@code names}, sorted by id and distinct, giving ids to any that don't
+   * have one yet. Only events should call this.
+   */
+  static Entry[] entriesOf(Collection<String> names) {
+    Entry[] result = new Entry[names.size()];
+    int count = 0;
+    for (String name : names) {
+      result[count++] = entryOf(name);
+    }
+    Arrays.sort(result, 0, count, (a, b) -> Integer.compare(a.id, b.id));
+    int distinct = 0;
+    for (int i = 0; i < count; i++) {
+      if (distinct == 0 || result[i] != result[distinct - 1]) {
+        result[distinct++] = result[i];
+      }
+    }
+    return distinct == result.length ? result : Arrays.copyOf(result, distinct);
+  }
+
+  /**
+   * Returns the id of {@code name}, or -1 if it doesn't have one.
+   */
+  public static int knownIdOf(String name) {
+    Entry entry = get(name);
+    return entry == null ? -1 : entry.id;
+  }
+
+  /**
+   * Returns the number of ids given out so far. A name without an id can only have been given one
+   * since this was last called if the number has changed.
+   */
+  public static int idCount() {
+    return idCount;
+  }
+
+  /**
+   * Returns the sorted, distinct ids of those of {@code names} that already have one. A name
+   * without an id can't be attending any event, so it is left out rather than given an id.
+   */
+  public static int[] knownIdsOf(Collection<String> names) {
+    int[] result = new int[names.size()];
+    int count = 0;
+    for (String name : names) {
+      int id = knownIdOf(name);
+      if (id >= 0) {
+        result[count++] = id;
+      }
+    }
+    return sortDistinct(result, count);
+  }
+
+  /**
+   * Returns true if the sorted arrays {@code a} and {@code b} have an id in common.
+   */
+  public static boolean intersects(int[] a, int[] b) {
+    // Walk both arrays in step, or binary search the larger one when the sizes are lopsided.
+    if (a.length > b.length) {
+      int[] swap = a;
+      a = b;
+      b = swap;
+    }
+    if (a.length * 8 < b.length) {
+      for (int id : a) {
+        if (Arrays.binarySearch(b, id) >= 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+    int i = 0;
+    int j = 0;
+    while (i < a.length && j < b.length) {
+      if (a[i] == b[j]) {
+        return true;
+      } else if (a[i] < b[j]) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    return false;
+  }
+
+  private static int[] sortDistinct(int[] ids, int count) {
+    Arrays.sort(ids, 0, count);
+    int distinct = 0;
+    for (int i = 0; i < count; i++) {
+      if (distinct == 0 || ids[i] != ids[distinct - 1]) {
+        ids[distinct++] = ids[i];
+      }
+    }
+    return distinct == ids.length ? ids : Arrays.copyOf(ids, distinct);
+  }
+
+  private static Entry get(String name) {
+    EntryReference reference = entries.get(name);
+    return reference == null ? null : reference.get();
+  }
+
+  /**
+   * Drops the names whose entries are no longer reachable. A name that has been given a new entry
+   * since is kept.
+   */
+  private static void dropUnreachable() {
+    EntryReference reference;
+    while ((reference = (EntryReference) unreachable.poll()) != null) {
+      entries.remove(reference.name, reference);
+    }
+  }
+
+  /**
+   * An attendee name and its id. The id stays taken for as long as the entry is reachable.
+   */
+  static final class Entry {
+    private final String name;
+    private final int id;
+
+    private Entry(String name, int id) {
+      this.name = name;
+      this.id = id;
+    }
+
+    String getName() {
+      return name;
+    }
+
+    int getId() {
+      return id;
+    }
+  }
+
+  // A weak reference to an entry that remembers its name, so the name can be dropped once the
+  // entry is no longer reachable.
+  private static final class EntryReference extends WeakReference<Entry> {
+    private final String name;
+
+    private EntryReference(Entry entry) {
+      super(entry, unreachable);
+      this.name = entry.name;
+    }
+  }
+}
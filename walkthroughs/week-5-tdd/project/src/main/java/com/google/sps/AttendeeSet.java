@@ -0,0 +1,90 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A read-only set of attendee names backed by their {@code AttendeeDictionary} entries, sorted by
+ * id. Holding the set keeps the names' ids taken.
+ */
+final class AttendeeSet extends AbstractSet<String> {
+  private final AttendeeDictionary.Entry[] entries;
+  private final int[] ids;
+
+  AttendeeSet(Collection<String> names) {
+    this(AttendeeDictionary.entriesOf(names));
+  }
+
+  private AttendeeSet(AttendeeDictionary.Entry[] entries) {
+    this.entries = entries;
+    this.ids = new int[entries.length];
+    for (int i = 0; i < entries.length; i++) {
+      ids[i] = entries[i].getId();
+    }
+  }
+
+  /**
+   * Returns the sorted, distinct ids of the attendees. The array is shared and mustn't be changed.
+   */
+  int[] getIds() {
+    return ids;
+  }
+
+  /**
+   * Returns the entry of the attendee with the given index in id order.
+   */
+  AttendeeDictionary.Entry getEntry(int index) {
+    return entries[index];
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    if (!(o instanceof String)) {
+      return false;
+    }
+    int id = AttendeeDictionary.knownIdOf((String) o);
+    return id >= 0 && Arrays.binarySearch(ids, id) >= 0;
+  }
+
+  @Override
+  public Iterator<String> iterator() {
+    return new Iterator<String>() {
+      private int next = 0;
+
+      @Override
+      public boolean hasNext() {
+        return next < ids.length;
+      }
+
+      @Override
+      public String next() {
+        if (next == ids.length) {
+          throw new NoSuchElementException();
+        }
+        return entries[next++].getName();
+      }
+    };
+  }
+
+  @Override
+  public int size() {
+    return ids.length;
+  }
+}
@@ -0,0 +1,170 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * BitsetMeetingQuery answers meeting requests against a fixed set of events by keeping one bit per
+ * minute of the day for each attendee, set when the attendee is busy. A query ORs together the
+ * bitsets of the requested attendees and then scans the result a word at a time for free runs, so
+ * its cost does not depend on how many events the attendees have. This suits dense calendars,
+ * where merging busy ranges is slower.
+ */
+public final class BitsetMeetingQuery {
+  private static final int MINUTES_IN_DAY = TimeRange.WHOLE_DAY.duration();
+
+  // The number of longs needed to hold one bit for every minute of the day.
+  static final int WORDS = (MINUTES_IN_DAY + Long.SIZE - 1) / Long.SIZE;
+
+  // The bits past the end of the day in the last word, which are always treated as busy so that
+  // scans stop there.
+  private static final long PAST_END_OF_DAY = -1L << (MINUTES_IN_DAY % Long.SIZE);
+
+  // The bitset each query ORs the attendees' bitsets into, one per thread so that queries don't
+  // allocate.
+  private static final ThreadLocal<long[]> SCRATCH = ThreadLocal.withInitial(() -> new long[WORDS]);
+
+  // The busy minutes of each attendee by their id in the {@code AttendeeDictionary}.
+  private final IdTrie<long[]> busyByAttendee;
+
+  // The dictionary entries of the attendees in {@code busyByAttendee}, held so that their ids stay
+  // taken.
+  private final IdTrie<AttendeeDictionary.Entry> entries;
+
+  /**
+   * Creates the bitsets of everyone attending {@code events}. Only the parts of the events that
+   * fall within the day are kept.
+   */
+  public BitsetMeetingQuery(Collection<Event> events) {
+    int maxId = -1;
+    for (Event event : events) {
+      for (int attendee : event.getAttendeeIds()) {
+        maxId = Math.max(maxId, attendee);
+      }
+    }
+
+    long[][] busyById = new long[maxId + 1][];
+    AttendeeDictionary.Entry[] entriesById = new AttendeeDictionary.Entry[maxId + 1];
+    for (Event event : events) {
+      TimeRange when = event.getWhen();
+      int start = Math.max(when.start(), TimeRange.START_OF_DAY);
+      int end = Math.min(when.end(), MINUTES_IN_DAY);
+      if (start >= end) {
+        continue;
+      }
+      int[] ids = event.getAttendeeIds();
+      for (int i = 0; i < ids.length; i++) {
+        if (busyById[ids[i]] == null) {
+          busyById[ids[i]] = new long[WORDS];
+          entriesById[ids[i]] = event.getAttendeeEntry(i);
+        }
+        setRange(busyById[ids[i]], start, end);
+      }
+    }
+    busyByAttendee = IdTrie.of(busyById);
+    entries = IdTrie.of(entriesById);
+  }
+
+  /**
+   * Returns the same ranges as {@code FindMeetingQuery.query} over the events this was created
+   * with.
+   */
+  public Collection<TimeRange> query(MeetingRequest request) {
+    List<TimeRange> free = new ArrayList<>();
+    long duration = request.getDuration();
+    if (duration > MINUTES_IN_DAY) {
+      return free;
+    }
+
+    long[] busy = SCRATCH.get();
+    Arrays.fill(busy, 0);
+    for (int attendee : request.getAttendeeIds()) {
+      long[] attendeeBusy = busyByAttendee.get(attendee);
+      if (attendeeBusy != null) {
+        for (int i = 0; i < WORDS; i++) {
+          busy[i] |= attendeeBusy[i];
+        }
+      }
+    }
+    busy[WORDS - 1] |= PAST_END_OF_DAY;
+
+    // Jump from each free minute to the next busy one and back, skipping whole words at a time.
+    int start = nextClearBit(busy, 0);
+    while (start < MINUTES_IN_DAY) {
+      int end = nextSetBit(busy, start);
+      if (end - start >= duration) {
+        free.add(TimeRange.fromStartEnd(start, end, false));
+      }
+      start = nextClearBit(busy, end);
+    }
+    return free;
+  }
+
+  /**
+   * Sets the bits of the minutes in [start, end), which must lie within the day.
+   */
+  static void setRange(long[] bits, int start, int end) {
+    int firstWord = start / Long.SIZE;
+    int lastWord = (end - 1) / Long.SIZE;
+    // Shifts only use the low six bits, so these are the masks from start and up to end.
+    long firstMask = -1L << start;
+    long lastMask = -1L >>> -end;
+    if (firstWord == lastWord) {
+      bits[firstWord] |= firstMask & lastMask;
+      return;
+    }
+    bits[firstWord] |= firstMask;
+    for (int i = firstWord + 1; i < lastWord; i++) {
+      bits[i] = -1L;
+    }
+    bits[lastWord] |= lastMask;
+  }
+
+  /**
+   * Returns the first minute at or after {@code from} whose bit is set. The last word must have
+   * its bits past the end of the day set.
+   */
+  static int nextSetBit(long[] bits, int from) {
+    int word = from / Long.SIZE;
+    long remaining = bits[word] & (-1L << from);
+    while (remaining == 0) {
+      remaining = bits[++word];
+    }
+    return word * Long.SIZE + Long.numberOfTrailingZeros(remaining);
+  }
+
+  /**
+   * Returns the first minute at or after {@code from} whose bit is clear, or a minute at or past
+   * the end of the day if there is none.
+   */
+  static int nextClearBit(long[] bits, int from) {
+    int word = from / Long.SIZE;
+    if (word >= WORDS) {
+      return from;
+    }
+    long remaining = ~bits[word] & (-1L << from);
+    while (remaining == 0) {
+      if (++word == WORDS) {
+        return MINUTES_IN_DAY;
+      }
+      remaining = ~bits[word];
+    }
+    return word * Long.SIZE + Long.numberOfTrailingZeros(remaining);
+  }
+}
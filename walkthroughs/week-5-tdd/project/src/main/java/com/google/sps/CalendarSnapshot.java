@@ -0,0 +1,180 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * CalendarSnapshot reads and writes a {@code ColumnarEventStore} as a binary file. A snapshot is
+ * read by mapping the file into memory, so loading one takes about as long as reading its header,
+ * and every process that maps the same file shares its pages.
+ *
+ * <p>A snapshot is made of little-endian ints followed by UTF-8 text:
+ *
+ * <pre>
+ * header:       MAGIC, VERSION, events (n), attendees (a), event attendees (m), name bytes,
+ *               title bytes
+ * ints:         name offsets (a + 1), starts (n), durations (n), attendee offsets (n + 1),
+ *               event attendees (m), title offsets (n + 1)
+ * bytes:        names, titles
+ * </pre>
+ */
+public final class CalendarSnapshot {
+  // "CALS" in ASCII.
+  public static final int MAGIC = 0x43414C53;
+  public static final int VERSION = 1;
+
+  private static final int HEADER_INTS = 7;
+
+  private CalendarSnapshot() {}
+
+  /**
+   * Writes {@code store} to {@code path}. The snapshot is written next to {@code path} and then
+   * moved over it, so a reader never maps a snapshot that is only partly written.
+   */
+  public static void write(ColumnarEventStore store, Path path) throws IOException {
+    String[] names = store.getAttendeeNames();
+    byte[][] encodedNames = new byte[names.length][];
+    int nameBytes = 0;
+    for (int i = 0; i < names.length; i++) {
+      encodedNames[i] = names[i].getBytes(StandardCharsets.UTF_8);
+      nameBytes += encodedNames[i].length;
+    }
+    int eventCount = store.size();
+    int eventAttendeeCount = store.getEventAttendees().limit();
+    int titleBytes = store.getTitles().limit();
+
+    long intCount = HEADER_INTS + (names.length + 1L) + 4L * eventCount + 2 + eventAttendeeCount;
+    long size = intCount * Integer.BYTES + nameBytes + titleBytes;
+
+    Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+      buffer.putInt(MAGIC).putInt(VERSION).putInt(eventCount).putInt(names.length)
+          .putInt(eventAttendeeCount).putInt(nameBytes).putInt(titleBytes);
+      int nameOffset = 0;
+      for (byte[] name : encodedNames) {
+        buffer.putInt(nameOffset);
+        nameOffset += name.length;
+      }
+      buffer.putInt(nameOffset);
+      putInts(buffer, store.getStarts());
+      putInts(buffer, store.getDurations());
+      putInts(buffer, store.getAttendeeOffsets());
+      putInts(buffer, store.getEventAttendees());
+      putInts(buffer, store.getTitleOffsets());
+      for (byte[] name : encodedNames) {
+        buffer.put(name);
+      }
+      ByteBuffer titles = store.getTitles().duplicate();
+      ((Buffer) titles).position(0);
+      buffer.put(titles);
+      buffer.force();
+    }
+    Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static void putInts(ByteBuffer buffer, IntBuffer ints) {
+    for (int i = 0; i < ints.limit(); i++) {
+      buffer.putInt(ints.get(i));
+    }
+  }
+
+  /**
+   * Maps the snapshot at {@code path} and returns a store over it. Only the attendee names are
+   * copied onto the heap; the events are read from the mapped file as they are needed.
+   *
+   * @throws IOException if the file can't be read, or isn't a snapshot of a version this can read
+   */
+  public static ColumnarEventStore read(Path path) throws IOException {
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      // The mapping stays valid after the channel is closed.
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+    if (buffer.limit() < HEADER_INTS * Integer.BYTES || buffer.getInt() != MAGIC) {
+      throw new IOException(path + " is not a calendar snapshot");
+    }
+    int version = buffer.getInt();
+    if (version != VERSION) {
+      throw new IOException(path + " is a version " + version + " snapshot, expected " + VERSION);
+    }
+    int eventCount = buffer.getInt();
+    int attendeeCount = buffer.getInt();
+    int eventAttendeeCount = buffer.getInt();
+    int nameBytes = buffer.getInt();
+    int titleBytes = buffer.getInt();
+
+    long intCount = HEADER_INTS + (attendeeCount + 1L) + 4L * eventCount + 2 + eventAttendeeCount;
+    if (intCount * Integer.BYTES + nameBytes + titleBytes != buffer.limit()) {
+      throw new IOException(path + " is not the size its header says");
+    }
+
+    IntBuffer nameOffsets = sliceInts(buffer, attendeeCount + 1);
+    IntBuffer starts = sliceInts(buffer, eventCount);
+    IntBuffer durations = sliceInts(buffer, eventCount);
+    IntBuffer attendeeOffsets = sliceInts(buffer, eventCount + 1);
+    IntBuffer eventAttendees = sliceInts(buffer, eventAttendeeCount);
+    IntBuffer titleOffsets = sliceInts(buffer, eventCount + 1);
+    ByteBuffer names = sliceBytes(buffer, nameBytes);
+    ByteBuffer titles = sliceBytes(buffer, titleBytes);
+
+    String[] attendeeNames = new String[attendeeCount];
+    for (int i = 0; i < attendeeCount; i++) {
+      byte[] name = new byte[nameOffsets.get(i + 1) - nameOffsets.get(i)];
+      ((Buffer) names).position(nameOffsets.get(i));
+      names.get(name);
+      attendeeNames[i] = new String(name, StandardCharsets.UTF_8);
+    }
+    return new ColumnarEventStore(
+        attendeeNames, starts, durations, attendeeOffsets, eventAttendees, titleOffsets, titles);
+  }
+
+  /**
+   * Returns the next {@code count} ints of {@code buffer} and moves past them.
+   */
+  private static IntBuffer sliceInts(ByteBuffer buffer, int count) {
+    return sliceBytes(buffer, count * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+  }
+
+  /**
+   * Returns the next {@code count} bytes of {@code buffer} and moves past them.
+   */
+  private static ByteBuffer sliceBytes(ByteBuffer buffer, int count) {
+    ByteBuffer bytes = buffer.slice();
+    // Position and limit are called through Buffer, since the ByteBuffer overrides only exist from
+    // Java 9 and code built against them fails to link on Java 8.
+    ((Buffer) bytes).limit(count);
+    ((Buffer) buffer).position(buffer.position() + count);
+    return bytes;
+  }
+}
@@ -0,0 +1,408 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ColumnarEventStore holds a fixed set of events as columns in direct buffers, outside the Java
+ * heap. There is one column each for the start and duration of every event, the attendee ids of
+ * every event with the offset where each event's ids begin, and the UTF-8 titles with their
+ * offsets. Queries scan the columns directly, and an {@code Event} is only created when one is
+ * asked for.
+ *
+ * <p>Attendee ids here are local to the store, dense from 0, and sorted within each event. Only the
+ * table of attendee names, which grows with the number of people rather than events, is kept on
+ * the heap.
+ */
+public final class ColumnarEventStore {
+  private final String[] attendeeNames;
+  private final Map<String, Integer> attendeeIds = new HashMap<>();
+
+  private final IntBuffer starts;
+  private final IntBuffer durations;
+  // Event i's attendees are at [attendeeOffsets[i], attendeeOffsets[i + 1]) in eventAttendees.
+  private final IntBuffer attendeeOffsets;
+  private final IntBuffer eventAttendees;
+  // Event i's title is at [titleOffsets[i], titleOffsets[i + 1]) in titles.
+  private final IntBuffer titleOffsets;
+  private final ByteBuffer titles;
+
+  /**
+   * Creates a store holding a copy of {@code events}.
+   */
+  public ColumnarEventStore(Collection<Event> events) {
+    Map<String, Integer> ids = new HashMap<>();
+    List<String> names = new ArrayList<>();
+    int attendeeCount = 0;
+    int titleLength = 0;
+    List<byte[]> encodedTitles = new ArrayList<>(events.size());
+    for (Event event : events) {
+      for (String attendee : event.getAttendees()) {
+        if (!ids.containsKey(attendee)) {
+          ids.put(attendee, names.size());
+          names.add(attendee);
+        }
+      }
+      attendeeCount += event.getAttendees().size();
+      byte[] title = event.getTitle().getBytes(StandardCharsets.UTF_8);
+      encodedTitles.add(title);
+      titleLength += title.length;
+    }
+
+    int eventCount = events.size();
+    starts = allocateInts(eventCount);
+    durations = allocateInts(eventCount);
+    attendeeOffsets = allocateInts(eventCount + 1);
+    eventAttendees = allocateInts(attendeeCount);
+    titleOffsets = allocateInts(eventCount + 1);
+    titles = ByteBuffer.allocateDirect(titleLength);
+
+    int i = 0;
+    int attendeeOffset = 0;
+    int titleOffset = 0;
+    for (Event event : events) {
+      starts.put(i, event.getWhen().start());
+      durations.put(i, event.getWhen().duration());
+
+      int[] local = new int[event.getAttendees().size()];
+      int count = 0;
+      for (String attendee : event.getAttendees()) {
+        local[count++] = ids.get(attendee);
+      }
+      Arrays.sort(local);
+      attendeeOffsets.put(i, attendeeOffset);
+      for (int id : local) {
+        eventAttendees.put(attendeeOffset++, id);
+      }
+
+      byte[] title = encodedTitles.get(i);
+      titleOffsets.put(i, titleOffset);
+      for (byte b : title) {
+        titles.put(titleOffset++, b);
+      }
+      i++;
+    }
+    attendeeOffsets.put(eventCount, attendeeOffset);
+    titleOffsets.put(eventCount, titleOffset);
+
+    this.attendeeNames = names.toArray(new String[0]);
+    this.attendeeIds.putAll(ids);
+  }
+
+  /**
+   * Creates a store over existing columns, laid out as described above, which must not change
+   * afterwards.
+   */
+  ColumnarEventStore(String[] attendeeNames, IntBuffer starts, IntBuffer durations,
+      IntBuffer attendeeOffsets, IntBuffer eventAttendees, IntBuffer titleOffsets,
+      ByteBuffer titles) {
+    this.attendeeNames = attendeeNames;
+    for (int id = 0; id < attendeeNames.length; id++) {
+      attendeeIds.put(attendeeNames[id], id);
+    }
+    this.starts = starts;
+    this.durations = durations;
+    this.attendeeOffsets = attendeeOffsets;
+    this.eventAttendees = eventAttendees;
+    this.titleOffsets = titleOffsets;
+    this.titles = titles;
+  }
+
+  private static IntBuffer allocateInts(int count) {
+    return ByteBuffer.allocateDirect(count * Integer.BYTES).order(ByteOrder.nativeOrder())
+        .asIntBuffer();
+  }
+
+  /**
+   * Returns the number of events in the store.
+   */
+  public int size() {
+    return starts.limit();
+  }
+
+  /**
+   * Returns the same ranges as {@code FindMeetingQuery.query} over the events in the store.
+   */
+  public Collection<TimeRange> query(MeetingRequest request) {
+    int[] attendees = getLocalIds(request.getAttendees());
+
+    // Only the columns are read, so no events are created.
+    int eventCount = size();
+    TimeRangeList busy = FindMeetingQuery.reusedBusyList();
+    for (int i = 0; i < eventCount; i++) {
+      int duration = durations.get(i);
+      if (duration > 0 && sharesAttendee(i, attendees)) {
+        busy.add(starts.get(i), duration);
+      }
+    }
+    busy.sort();
+    busy.mergeOverlaps();
+    return FindMeetingQuery.findFreeRanges(busy, request.getDuration());
+  }
+
+  /**
+   * Returns the same ranges as {@code FindMeetingQuery.queryWithOptionalAttendees} over the events
+   * in the store.
+   */
+  public Collection<TimeRange> queryWithOptionalAttendees(MeetingRequest request) {
+    int[] required = getLocalIds(request.getAttendees());
+    int[] optional = getLocalIds(request.getOptionalAttendees());
+
+    // Collect the busy ranges of the required attendees as a whole, and of each optional attendee
+    // by their position in optional.
+    int eventCount = size();
+    long[] requiredBusy = new long[16];
+    int requiredCount = 0;
+    long[][] optionalBusy = new long[optional.length][];
+    int[] optionalCounts = new int[optional.length];
+    for (int i = 0; i < eventCount; i++) {
+      int duration = durations.get(i);
+      if (duration <= 0) {
+        continue;
+      }
+      long packed = FindMeetingQuery.pack(starts.get(i), starts.get(i) + duration);
+      if (sharesAttendee(i, required)) {
+        requiredBusy = grow(requiredBusy, requiredCount);
+        requiredBusy[requiredCount++] = packed;
+        continue;
+      }
+      for (int j = attendeeOffsets.get(i); j < attendeeOffsets.get(i + 1); j++) {
+        int position = Arrays.binarySearch(optional, eventAttendees.get(j));
+        if (position >= 0) {
+          int count = optionalCounts[position];
+          optionalBusy[position] = grow(optionalBusy[position], count);
+          optionalBusy[position][count] = packed;
+          optionalCounts[position] = count + 1;
+        }
+      }
+    }
+
+    Arrays.sort(requiredBusy, 0, requiredCount);
+    List<long[]> sortedOptionalBusy = new ArrayList<>();
+    for (int position = 0; position < optional.length; position++) {
+      if (optionalCounts[position] > 0) {
+        long[] busy = Arrays.copyOf(optionalBusy[position], optionalCounts[position]);
+        Arrays.sort(busy);
+        sortedOptionalBusy.add(busy);
+      }
+    }
+    return FindMeetingQuery.findBestRanges(requiredBusy, requiredCount,
+        !request.getAttendees().isEmpty(), sortedOptionalBusy,
+        request.getOptionalAttendees().size(), request.getDuration());
+  }
+
+  /**
+   * Returns {@code busy}, or a copy of it with twice the room if its first {@code count} ranges
+   * fill it, so that buffers only grow with the number of events that match a query.
+   */
+  private static long[] grow(long[] busy, int count) {
+    if (busy == null) {
+      return new long[4];
+    }
+    return count < busy.length ? busy : Arrays.copyOf(busy, count * 2);
+  }
+
+  /**
+   * Returns an index of the busy ranges of every attendee in the store, which answers the same
+   * queries as the store without scanning every event. Only the columns are read, so no events are
+   * created, but the attendees' names are given ids in the {@code AttendeeDictionary}, which stay
+   * taken for as long as the index is reachable.
+   */
+  public AttendeeAvailabilityIndex buildIndex() {
+    AttendeeDictionary.Entry[] entries = new AttendeeDictionary.Entry[attendeeNames.length];
+    int[] globalIds = new int[attendeeNames.length];
+    int maxId = -1;
+    for (int local = 0; local < attendeeNames.length; local++) {
+      entries[local] = AttendeeDictionary.entryOf(attendeeNames[local]);
+      globalIds[local] = entries[local].getId();
+      maxId = Math.max(maxId, globalIds[local]);
+    }
+
+    // Count every attendee's ranges first, so each array is allocated at its final size.
+    int eventCount = size();
+    int[] counts = new int[attendeeNames.length];
+    for (int i = 0; i < eventCount; i++) {
+      if (durations.get(i) > 0) {
+        for (int j = attendeeOffsets.get(i); j < attendeeOffsets.get(i + 1); j++) {
+          counts[eventAttendees.get(j)]++;
+        }
+      }
+    }
+    long[][] busyById = new long[maxId + 1][];
+    AttendeeDictionary.Entry[] entriesById = new AttendeeDictionary.Entry[maxId + 1];
+    for (int local = 0; local < attendeeNames.length; local++) {
+      busyById[globalIds[local]] = new long[counts[local]];
+      entriesById[globalIds[local]] = entries[local];
+    }
+    Arrays.fill(counts, 0);
+    for (int i = 0; i < eventCount; i++) {
+      int duration = durations.get(i);
+      if (duration <= 0) {
+        continue;
+      }
+      long packed = FindMeetingQuery.pack(starts.get(i), starts.get(i) + duration);
+      for (int j = attendeeOffsets.get(i); j < attendeeOffsets.get(i + 1); j++) {
+        int local = eventAttendees.get(j);
+        busyById[globalIds[local]][counts[local]++] = packed;
+      }
+    }
+    return new AttendeeAvailabilityIndex(busyById, entriesById);
+  }
+
+  /**
+   * Returns an interval tree of the indices of the events in the store, keyed by when each event
+   * happens. Only the start and duration columns are read, so no events are created; callers
+   * create events with {@link #getEvent} for just the indices a query finds.
+   */
+  public EventIndexTree buildEventTree() {
+    return new EventIndexTree(starts, durations);
+  }
+
+  /**
+   * Returns when event {@code i} happens.
+   */
+  public TimeRange getWhen(int i) {
+    return TimeRange.fromStartDuration(starts.get(i), durations.get(i));
+  }
+
+  /**
+   * Returns event {@code i}, created from the columns.
+   */
+  public Event getEvent(int i) {
+    List<String> attendees = new ArrayList<>();
+    for (int j = attendeeOffsets.get(i); j < attendeeOffsets.get(i + 1); j++) {
+      attendees.add(attendeeNames[eventAttendees.get(j)]);
+    }
+    return new Event(getTitle(i), getWhen(i), attendees);
+  }
+
+  /**
+   * Returns a read-only list of the events in the store, each created when it is read.
+   */
+  public List<Event> asList() {
+    return new EventList();
+  }
+
+  /**
+   * Returns the title of event {@code i}.
+   */
+  public String getTitle(int i) {
+    int start = titleOffsets.get(i);
+    byte[] title = new byte[titleOffsets.get(i + 1) - start];
+    // Read through a duplicate, so that concurrent readers don't share a position.
+    ByteBuffer view = titles.duplicate();
+    // Called through Buffer, since ByteBuffer.position(int) only exists from Java 9 and code built
+    // against it fails to link on Java 8.
+    ((Buffer) view).position(start);
+    view.get(title);
+    return new String(title, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Returns true if event {@code i} has an attendee in {@code sortedIds}. Both lists are sorted, so
+   * they are walked in step.
+   */
+  private boolean sharesAttendee(int i, int[] sortedIds) {
+    int j = attendeeOffsets.get(i);
+    int end = attendeeOffsets.get(i + 1);
+    int k = 0;
+    while (j < end && k < sortedIds.length) {
+      int id = eventAttendees.get(j);
+      if (id == sortedIds[k]) {
+        return true;
+      } else if (id < sortedIds[k]) {
+        j++;
+      } else {
+        k++;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the sorted ids in this store of those of {@code names} that attend any event.
+   */
+  private int[] getLocalIds(Collection<String> names) {
+    int[] ids = new int[names.size()];
+    int count = 0;
+    for (String name : names) {
+      Integer id = attendeeIds.get(name);
+      if (id != null) {
+        ids[count++] = id;
+      }
+    }
+    Arrays.sort(ids, 0, count);
+    return Arrays.copyOf(ids, count);
+  }
+
+  /**
+   * Returns the name of every attendee, indexed by their id in this store.
+   */
+  String[] getAttendeeNames() {
+    return attendeeNames;
+  }
+
+  IntBuffer getStarts() {
+    return starts;
+  }
+
+  IntBuffer getDurations() {
+    return durations;
+  }
+
+  IntBuffer getAttendeeOffsets() {
+    return attendeeOffsets;
+  }
+
+  IntBuffer getEventAttendees() {
+    return eventAttendees;
+  }
+
+  IntBuffer getTitleOffsets() {
+    return titleOffsets;
+  }
+
+  ByteBuffer getTitles() {
+    return titles;
+  }
+
+  /**
+   * The events of the store as a list. A named class rather than an anonymous one, so that Gson
+   * will serialize it.
+   */
+  private final class EventList extends AbstractList<Event> {
+    @Override
+    public Event get(int i) {
+      return getEvent(i);
+    }
+
+    @Override
+    public int size() {
+      return ColumnarEventStore.this.size();
+    }
+  }
+}
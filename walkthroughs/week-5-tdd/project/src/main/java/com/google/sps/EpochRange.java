@@ -0,0 +1,141 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class representing a span of time that isn't limited to one day. Times are counted in minutes
+ * since the epoch (1970-01-01T00:00Z), so a range can cover any number of days.
+ */
+public final class EpochRange {
+  public static final long MINUTES_PER_DAY = TimeUnit.DAYS.toMinutes(1);
+
+  /**
+   * A comparator for sorting ranges by their start time in ascending order.
+   */
+  public static final Comparator<EpochRange> ORDER_BY_START = new Comparator<EpochRange>() {
+    @Override
+    public int compare(EpochRange a, EpochRange b) {
+      return Long.compare(a.start, b.start);
+    }
+  };
+
+  private final long start;
+  private final long duration;
+
+  private EpochRange(long start, long duration) {
+    this.start = start;
+    this.duration = duration;
+  }
+
+  /**
+   * Returns the start of the range in minutes since the epoch.
+   */
+  public long start() {
+    return start;
+  }
+
+  /**
+   * Returns the number of minutes between the start and end.
+   */
+  public long duration() {
+    return duration;
+  }
+
+  /**
+   * Returns the end of the range. This ending value is the closing exclusive bound.
+   */
+  public long end() {
+    return start + duration;
+  }
+
+  /**
+   * Checks if two ranges overlap. This means that at least some part of one range falls within the
+   * bounds of another range.
+   */
+  public boolean overlaps(EpochRange other) {
+    return duration > 0 && other.duration > 0 && start < other.end() && other.start < end();
+  }
+
+  /**
+   * Checks if this range completely contains another range. This is an inclusive bounds, meaning
+   * that if two ranges are the same, they contain each other.
+   */
+  public boolean contains(EpochRange other) {
+    // If this range has no duration, it cannot contain anything.
+    if (duration <= 0) {
+      return false;
+    }
+
+    // If the other range has no duration, then we must treat it like a point in time.
+    if (other.duration <= 0) {
+      return contains(other.start);
+    }
+    return start <= other.start && other.end() <= end();
+  }
+
+  public boolean contains(long point) {
+    return duration > 0 && start <= point && point < end();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof EpochRange
+        && start == ((EpochRange) other).start && duration == ((EpochRange) other).duration;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(start) ^ Long.hashCode(duration);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Range: [%d, %d)", start, start + duration);
+  }
+
+  /**
+   * Creates an {@code EpochRange} from {@code start} to {@code end}, not including {@code end}.
+   */
+  public static EpochRange fromStartEnd(long start, long end) {
+    return new EpochRange(start, end - start);
+  }
+
+  /**
+   * Creates an {@code EpochRange} starting at {@code start} with a duration equal to {@code
+   * duration}.
+   */
+  public static EpochRange fromStartDuration(long start, long duration) {
+    return new EpochRange(start, duration);
+  }
+
+  /**
+   * Creates an {@code EpochRange} of {@code days} whole days, starting at the start of the day
+   * {@code epochDay} days after the epoch.
+   */
+  public static EpochRange ofDays(long epochDay, int days) {
+    return new EpochRange(epochDay * MINUTES_PER_DAY, days * MINUTES_PER_DAY);
+  }
+
+  /**
+   * Creates the {@code EpochRange} that {@code range} covers on the day {@code epochDay} days after
+   * the epoch.
+   */
+  public static EpochRange onDay(long epochDay, TimeRange range) {
+    return new EpochRange(epochDay * MINUTES_PER_DAY + range.start(), range.duration());
+  }
+}
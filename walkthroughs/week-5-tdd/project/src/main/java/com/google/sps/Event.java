@@ -14,9 +14,8 @@
 
 package com.google.sps;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -26,7 +25,9 @@ import java.util.Set;
 public final class Event {
   private final String title;
   private final TimeRange when;
-  private final Set<String> attendees = new HashSet<>();
+  // The attendees as a set of names backed by their {@code AttendeeDictionary} entries, which keeps
+  // their ids taken. Only the names are serialized.
+  private final AttendeeSet attendees;
 
   /**
    * Creates a new event.
@@ -50,7 +51,7 @@ public final class Event {
 
     this.title = title;
     this.when = when;
-    this.attendees.addAll(attendees);
+    this.attendees = new AttendeeSet(attendees);
   }
 
   /**
@@ -71,9 +72,24 @@ public final class Event {
    * Returns a read-only set of required attendees for this event.
    */
   public Set<String> getAttendees() {
-    // Return the attendees as an unmodifiable set so that the caller can't change our
-    // internal data.
-    return Collections.unmodifiableSet(attendees);
+    // The set is backed by the entries and has no methods that change it, so the caller can't
+    // change our internal data.
+    return attendees;
+  }
+
+  /**
+   * Returns the sorted ids of the required attendees for this event in the {@code
+   * AttendeeDictionary}. The returned array must not be modified.
+   */
+  public int[] getAttendeeIds() {
+    return attendees.getIds();
+  }
+
+  /**
+   * Returns the dictionary entry of the attendee with the given index in {@code getAttendeeIds}.
+   */
+  AttendeeDictionary.Entry getAttendeeEntry(int index) {
+    return attendees.getEntry(index);
   }
 
   @Override
@@ -89,8 +105,8 @@ public final class Event {
   }
 
   private static boolean equals(Event a, Event b) {
-    // {@code attendees} must be a set for equals to work as expected. According to the {@code Set}
-    // interface documentation, equals will check for set-equality across all set implementations.
-    return a.title.equals(b.title) && a.when.equals(b.when) && a.attendees.equals(b.attendees);
+    // The ids are sorted and distinct, so equal arrays mean equal sets of attendees.
+    return a.title.equals(b.title) && a.when.equals(b.when)
+        && Arrays.equals(a.getAttendeeIds(), b.getAttendeeIds());
   }
 }
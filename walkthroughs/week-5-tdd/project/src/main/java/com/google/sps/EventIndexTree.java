@@ -0,0 +1,148 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * EventIndexTree finds the indices of the events in a {@code ColumnarEventStore} whose ranges
+ * overlap a given range, answering the same queries as an {@code IntervalTree} of the events. It
+ * is read-only, so rather than nodes it keeps parallel arrays sorted by start time, treated as a
+ * balanced tree whose root is the middle element of each subrange. That takes 16 bytes per event,
+ * where a tree of nodes takes a node, a boxed index and a {@code TimeRange} for each. It can be
+ * shared between threads.
+ */
+public final class EventIndexTree {
+  // The index, start and end of each event, in order of start time.
+  private final int[] indices;
+  private final int[] starts;
+  private final int[] ends;
+
+  // The furthest point reached by any range in the subtree rooted at each element. A range with no
+  // duration counts as reaching one past its start, since it still overlaps ranges that contain
+  // its start.
+  private final int[] maxReach;
+
+  /**
+   * Creates a tree of the events whose starts and durations are in the given columns, in
+   * O(n log n) time for n events.
+   */
+  EventIndexTree(IntBuffer startColumn, IntBuffer durationColumn) {
+    int count = startColumn.limit();
+    // Sorting packed starts and indices orders the events without boxing either.
+    long[] order = new long[count];
+    for (int i = 0; i < count; i++) {
+      order[i] = (long) startColumn.get(i) << 32 | i;
+    }
+    Arrays.sort(order);
+
+    indices = new int[count];
+    starts = new int[count];
+    ends = new int[count];
+    maxReach = new int[count];
+    for (int position = 0; position < count; position++) {
+      int i = (int) order[position];
+      indices[position] = i;
+      starts[position] = startColumn.get(i);
+      ends[position] = starts[position] + durationColumn.get(i);
+    }
+    computeReach(0, count);
+  }
+
+  /**
+   * Fills in {@code maxReach} for the subtree of elements [from, to) and returns its reach.
+   */
+  private int computeReach(int from, int to) {
+    if (from >= to) {
+      return Integer.MIN_VALUE;
+    }
+    int middle = (from + to) >>> 1;
+    int reach = Math.max(ends[middle], starts[middle] + 1);
+    reach = Math.max(reach, computeReach(from, middle));
+    reach = Math.max(reach, computeReach(middle + 1, to));
+    maxReach[middle] = reach;
+    return reach;
+  }
+
+  /**
+   * Returns the number of events in the tree.
+   */
+  public int size() {
+    return indices.length;
+  }
+
+  /**
+   * Returns the indices of the events whose ranges overlap {@code range}, as by {@code
+   * TimeRange.overlaps}, in order of start time. A query that finds k events among n takes
+   * O(log n + k) time.
+   */
+  public int[] overlapping(TimeRange range) {
+    Found found = new Found();
+    // A range with no duration still finds the ranges that contain its start.
+    int end = Math.max(range.end(), range.start() + 1);
+    collect(0, indices.length, range, end, found);
+    return Arrays.copyOf(found.indices, found.count);
+  }
+
+  /**
+   * Returns the indices of the events whose ranges contain {@code point}, in order of start time.
+   */
+  public int[] stabbing(int point) {
+    return overlapping(TimeRange.fromStartDuration(point, 0));
+  }
+
+  private void collect(int from, int to, TimeRange range, int end, Found found) {
+    if (from >= to) {
+      return;
+    }
+    int middle = (from + to) >>> 1;
+    // Nothing in this subtree reaches the start of the range.
+    if (maxReach[middle] <= range.start()) {
+      return;
+    }
+    collect(from, middle, range, end, found);
+    // Everything to the right starts at or after this element, so it starts too late as well.
+    if (starts[middle] >= end) {
+      return;
+    }
+    if (overlaps(starts[middle], ends[middle], range)) {
+      found.add(indices[middle]);
+    }
+    collect(middle + 1, to, range, end, found);
+  }
+
+  /**
+   * Returns true if [start, end) overlaps {@code range}, as by {@code TimeRange.overlaps}: one of
+   * them has a duration and contains the other's start.
+   */
+  private static boolean overlaps(int start, int end, TimeRange range) {
+    return (start < end && start <= range.start() && range.start() < end)
+        || (range.duration() > 0 && range.start() <= start && start < range.end());
+  }
+
+  // The indices a query has found so far.
+  private static final class Found {
+    private int[] indices = new int[4];
+    private int count;
+
+    private void add(int index) {
+      if (count == indices.length) {
+        indices = Arrays.copyOf(indices, count * 2);
+      }
+      indices[count++] = index;
+    }
+  }
+}
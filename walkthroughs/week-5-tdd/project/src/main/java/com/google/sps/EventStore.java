@@ -0,0 +1,274 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * EventStore is a calendar of events that can change while it is being queried. Each change only
+ * updates the busy ranges of the attendees of the events involved, and then publishes a new
+ * {@code AttendeeAvailabilityIndex} that shares the ranges of everyone else with the previous one.
+ * Readers take the current index without locking and keep seeing the same calendar for as long as
+ * they hold on to it.
+ *
+ * <p>For an attendee with n distinct busy ranges, of which k fall within the merged range that a
+ * change touches, a change finds what to update in O(log n + k) time. The attendee's merged ranges
+ * are immutable arrays shared with readers, so the new array is written with one copy, and
+ * publishing it takes O(log a) time for a attendees.
+ */
+public final class EventStore {
+  // How many copies of each event are in the store, in the order they were first added.
+  private final Map<Event, Integer> eventCounts = new LinkedHashMap<>();
+
+  // The busy ranges of each attendee by id before merging, packed with {@code
+  // FindMeetingQuery.pack}, with how many events each range comes from.
+  private final Map<Integer, TreeMap<Long, Integer>> rangesByAttendee = new HashMap<>();
+
+  private volatile AttendeeAvailabilityIndex index;
+
+  // An interval tree of the events, built when first asked for after a change.
+  private IntervalTree<Event> eventTree;
+
+  /**
+   * Creates a store holding {@code events}.
+   */
+  public EventStore(Collection<Event> events) {
+    for (Event event : events) {
+      eventCounts.merge(event, 1, Integer::sum);
+      TimeRange when = event.getWhen();
+      if (when.duration() > 0) {
+        for (int attendee : event.getAttendeeIds()) {
+          countRange(attendee, FindMeetingQuery.pack(when.start(), when.end()), 1);
+        }
+      }
+    }
+    // Every attendee is merged once here rather than after each of their events.
+    index = new AttendeeAvailabilityIndex(events);
+  }
+
+  /**
+   * Returns the index of the store as it is now. Later changes to the store don't affect it.
+   */
+  public AttendeeAvailabilityIndex getIndex() {
+    return index;
+  }
+
+  /**
+   * Returns a copy of the events in the store.
+   */
+  public synchronized List<Event> getEvents() {
+    List<Event> events = new ArrayList<>();
+    for (Map.Entry<Event, Integer> event : eventCounts.entrySet()) {
+      for (int i = 0; i < event.getValue(); i++) {
+        events.add(event.getKey());
+      }
+    }
+    return events;
+  }
+
+  /**
+   * Returns an interval tree of the events in the store as it is now, keyed by when they take
+   * place. The tree must not be changed, and later changes to the store don't affect it.
+   */
+  public synchronized IntervalTree<Event> getEventTree() {
+    if (eventTree == null) {
+      eventTree = new IntervalTree<>(getEvents(), Event::getWhen);
+    }
+    return eventTree;
+  }
+
+  /**
+   * Adds {@code event} to the store.
+   */
+  public synchronized void add(Event event) {
+    eventCounts.merge(event, 1, Integer::sum);
+    Map<AttendeeDictionary.Entry, long[]> changed = new HashMap<>();
+    changeRanges(event, 1, changed);
+    publish(changed);
+  }
+
+  /**
+   * Removes one copy of {@code event} from the store. Returns false if it was not in the store.
+   */
+  public synchronized boolean remove(Event event) {
+    Integer count = eventCounts.get(event);
+    if (count == null) {
+      return false;
+    }
+    if (count == 1) {
+      eventCounts.remove(event);
+    } else {
+      eventCounts.put(event, count - 1);
+    }
+    Map<AttendeeDictionary.Entry, long[]> changed = new HashMap<>();
+    changeRanges(event, -1, changed);
+    publish(changed);
+    return true;
+  }
+
+  /**
+   * Replaces one copy of {@code oldEvent} with {@code newEvent}, publishing both changes at once.
+   * Returns false, and leaves the store unchanged, if {@code oldEvent} was not in the store.
+   */
+  public synchronized boolean update(Event oldEvent, Event newEvent) {
+    Integer count = eventCounts.get(oldEvent);
+    if (count == null) {
+      return false;
+    }
+    if (count == 1) {
+      eventCounts.remove(oldEvent);
+    } else {
+      eventCounts.put(oldEvent, count - 1);
+    }
+    eventCounts.merge(newEvent, 1, Integer::sum);
+
+    Map<AttendeeDictionary.Entry, long[]> changed = new HashMap<>();
+    changeRanges(oldEvent, -1, changed);
+    changeRanges(newEvent, 1, changed);
+    publish(changed);
+    return true;
+  }
+
+  /**
+   * Adds {@code delta} to the count of the range of {@code event} for each of its attendees, and
+   * puts into {@code changed}, keyed by dictionary entry, the merged busy ranges of those whose
+   * merged ranges change. Ranges already in {@code changed} are taken to be the latest.
+   */
+  private void changeRanges(
+      Event event, int delta, Map<AttendeeDictionary.Entry, long[]> changed) {
+    TimeRange when = event.getWhen();
+    if (when.duration() <= 0) {
+      return;
+    }
+    long range = FindMeetingQuery.pack(when.start(), when.end());
+    int[] ids = event.getAttendeeIds();
+    for (int i = 0; i < ids.length; i++) {
+      int attendee = ids[i];
+      AttendeeDictionary.Entry entry = event.getAttendeeEntry(i);
+      TreeMap<Long, Integer> ranges = countRange(attendee, range, delta);
+      // Another event with the same range keeps the merged ranges as they were.
+      int count = ranges.getOrDefault(range, 0);
+      if (delta > 0 ? count > delta : count > 0) {
+        continue;
+      }
+      long[] busy = changed.get(entry);
+      if (busy == null) {
+        busy = index.getBusy(attendee);
+      }
+      changed.put(entry,
+          delta > 0 ? insertRange(busy, range) : removeRange(busy, ranges, range));
+    }
+  }
+
+  /**
+   * Adds {@code delta} to the count of {@code range} for {@code attendee}, in O(log n) time for an
+   * attendee with n distinct ranges, and returns the attendee's ranges after the change.
+   */
+  private TreeMap<Long, Integer> countRange(int attendee, long range, int delta) {
+    TreeMap<Long, Integer> ranges =
+        rangesByAttendee.computeIfAbsent(attendee, key -> new TreeMap<>());
+    int count = ranges.getOrDefault(range, 0) + delta;
+    if (count > 0) {
+      ranges.put(range, count);
+    } else {
+      ranges.remove(range);
+    }
+    if (ranges.isEmpty()) {
+      rangesByAttendee.remove(attendee);
+    }
+    return ranges;
+  }
+
+  /**
+   * Returns a copy of the merged ranges {@code busy} with {@code range} added, merging it with the
+   * ranges it overlaps or touches.
+   */
+  static long[] insertRange(long[] busy, long range) {
+    int start = FindMeetingQuery.unpackStart(range);
+    int end = FindMeetingQuery.unpackEnd(range);
+    int first = firstEndingAfter(busy, start - 1);
+    int last = first;
+    while (last < busy.length && FindMeetingQuery.unpackStart(busy[last]) <= end) {
+      start = Math.min(start, FindMeetingQuery.unpackStart(busy[last]));
+      end = Math.max(end, FindMeetingQuery.unpackEnd(busy[last]));
+      last++;
+    }
+    return splice(busy, first, last, new long[] {FindMeetingQuery.pack(start, end)}, 1);
+  }
+
+  /**
+   * Returns a copy of the merged ranges {@code busy} after {@code range} was removed from the
+   * distinct ranges {@code ranges}. Only the merged range that held it is merged again, from the
+   * ranges that start within it.
+   */
+  static long[] removeRange(long[] busy, TreeMap<Long, Integer> ranges, long range) {
+    // Merged ranges never touch, so the first one ending after the start of the range holds it.
+    int holder = firstEndingAfter(busy, FindMeetingQuery.unpackStart(range));
+    long from = (long) FindMeetingQuery.unpackStart(busy[holder]) << 32;
+    long to = (long) FindMeetingQuery.unpackEnd(busy[holder]) << 32;
+    NavigableMap<Long, Integer> within = ranges.subMap(from, true, to, false);
+    long[] pieces = new long[within.size()];
+    int count = 0;
+    for (long remaining : within.keySet()) {
+      pieces[count++] = remaining;
+    }
+    long[] merged = AttendeeAvailabilityIndex.merge(pieces, count);
+    return splice(busy, holder, holder + 1, merged, merged.length);
+  }
+
+  /**
+   * Returns the index of the first of the merged ranges {@code busy} that ends after {@code point},
+   * or {@code busy.length} if there is none.
+   */
+  private static int firstEndingAfter(long[] busy, int point) {
+    int low = 0;
+    int high = busy.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (FindMeetingQuery.unpackEnd(busy[middle]) <= point) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns a copy of {@code busy} with the ranges in [from, to) replaced by the first {@code
+   * count} of {@code replacement}.
+   */
+  private static long[] splice(long[] busy, int from, int to, long[] replacement, int count) {
+    long[] spliced = new long[busy.length - (to - from) + count];
+    System.arraycopy(busy, 0, spliced, 0, from);
+    System.arraycopy(replacement, 0, spliced, from, count);
+    System.arraycopy(busy, to, spliced, from + count, busy.length - to);
+    return spliced;
+  }
+
+  private void publish(Map<AttendeeDictionary.Entry, long[]> changed) {
+    eventTree = null;
+    if (!changed.isEmpty()) {
+      index = index.withBusy(changed);
+    }
+  }
+}
@@ -15,6 +15,9 @@
 
 package com.google.sps;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.util.Arrays;
 
 public final class Events {
@@ -135,4 +138,56 @@ public final class Events {
   private Events() {
     // Disallow instances.
   }
+
+  /**
+   * The events above, in a store that can be changed while it is being queried.
+   */
+  public static final EventStore store = new EventStore(Arrays.asList(events));
+
+  // The system property naming a calendar snapshot to serve instead of the events above.
+  public static final String SNAPSHOT_PROPERTY = "calendar.snapshot";
+
+  /**
+   * The calendar snapshot named by the {@code calendar.snapshot} system property, mapped when this
+   * class is loaded, or null if the property isn't set.
+   */
+  public static final ColumnarEventStore snapshot = loadSnapshot();
+
+  // The index of the snapshot, built when the snapshot is loaded.
+  private static final AttendeeAvailabilityIndex snapshotIndex =
+      snapshot == null ? null : snapshot.buildIndex();
+
+  /**
+   * Returns the index that every meeting query is answered from: the snapshot's if there is one,
+   * or else the store's as it is now.
+   */
+  public static AttendeeAvailabilityIndex getIndex() {
+    return snapshot != null ? snapshotIndex : store.getIndex();
+  }
+
+  /**
+   * Returns an interval tree of the indices of the snapshot's events, built the first time it is
+   * asked for. Must only be called if there is a snapshot.
+   */
+  public static EventIndexTree getSnapshotTree() {
+    return SnapshotTreeHolder.tree;
+  }
+
+  // Holds the tree of the snapshot, which is built when this class is first used, on the first
+  // query for events in a range.
+  private static final class SnapshotTreeHolder {
+    private static final EventIndexTree tree = snapshot.buildEventTree();
+  }
+
+  private static ColumnarEventStore loadSnapshot() {
+    String path = System.getProperty(SNAPSHOT_PROPERTY);
+    if (path == null || path.isEmpty()) {
+      return null;
+    }
+    try {
+      return CalendarSnapshot.read(Paths.get(path));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to load calendar snapshot " + path, e);
+    }
+  }
 }
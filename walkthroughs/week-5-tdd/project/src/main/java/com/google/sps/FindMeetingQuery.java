@@ -14,10 +14,284 @@
 
 package com.google.sps;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 public final class FindMeetingQuery {
+  // Each thread reuses one list of busy ranges, so that queries don't allocate once it has grown.
+  private static final ThreadLocal<TimeRangeList> BUSY =
+      ThreadLocal.withInitial(TimeRangeList::new);
+
+  // The most ranges a thread's list keeps room for between queries. A query with more busy ranges
+  // than this grows the list for itself, and the list is trimmed back once it is answered, so a
+  // pooled thread doesn't hold on to the space of the largest query it has ever seen.
+  private static final int RETAINED_CAPACITY = 4096;
+
+  /**
+   * Returns the ranges of the day when every required attendee of {@code request} is free for at
+   * least the duration of the request, in order of start time.
+   *
+   * <p>The busy ranges of the events that share an attendee with the request are packed into a
+   * reused {@code TimeRangeList}, which sorts them, merges them, and replaces them with the gaps
+   * they leave in the day. A query over n events therefore takes O(n log n) time at most, and only
+   * allocates the ranges it returns.
+   */
   public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
-    throw new UnsupportedOperationException("TODO: Implement this method.");
+    int[] attendees = request.getAttendeeIds();
+
+    TimeRangeList busy = reusedBusyList();
+    for (Event event : events) {
+      TimeRange when = event.getWhen();
+      if (when.duration() > 0 && AttendeeDictionary.intersects(event.getAttendeeIds(), attendees)) {
+        busy.add(when);
+      }
+    }
+    busy.sort();
+    busy.mergeOverlaps();
+    return findFreeRanges(busy, request.getDuration());
+  }
+
+  /**
+   * Returns this thread's reused list of busy ranges, cleared. It must be handed to {@code
+   * findFreeRanges} before the thread asks for it again.
+   */
+  static TimeRangeList reusedBusyList() {
+    TimeRangeList busy = BUSY.get();
+    busy.clear();
+    return busy;
+  }
+
+  /**
+   * Returns the gaps of at least {@code duration} minutes that the sorted and merged ranges of
+   * {@code busy} leave in the day, in order of start time. The list is used up, and trimmed if it
+   * is holding on to more space than a thread should keep between queries.
+   */
+  static List<TimeRange> findFreeRanges(TimeRangeList busy, long duration) {
+    busy.complement(TimeRange.START_OF_DAY, TimeRange.WHOLE_DAY.end());
+    busy.filterMinDuration(duration);
+    List<TimeRange> free = busy.toTimeRanges();
+    busy.clear();
+    busy.trimToCapacity(RETAINED_CAPACITY);
+    return free;
+  }
+
+  /**
+   * Returns the gaps of at least {@code duration} minutes that {@code sortedBusy} leaves in the
+   * day, as by {@code findFreeRanges(TimeRangeList, long)}. The ranges must be packed with {@code
+   * pack}, sorted and merged.
+   */
+  static List<TimeRange> findFreeRanges(long[] sortedBusy, long duration) {
+    TimeRangeList busy = reusedBusyList();
+    for (long range : sortedBusy) {
+      int start = unpackStart(range);
+      busy.add(start, unpackEnd(range) - start);
+    }
+    return findFreeRanges(busy, duration);
+  }
+
+  /**
+   * Answers every request in {@code requests} against the same {@code events}, in parallel on the
+   * common fork-join pool. Returns the results in the order of the requests.
+   */
+  public List<MeetingQueryResult> queryBatch(
+      Collection<Event> events, List<MeetingRequest> requests) {
+    return queryBatch(new AttendeeAvailabilityIndex(events), requests, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Answers every request in {@code requests} against {@code index}, in parallel on {@code pool}.
+   * Requests with optional attendees are answered as by {@code queryWithOptionalAttendees}.
+   * Returns the results in the order of the requests.
+   */
+  public List<MeetingQueryResult> queryBatch(
+      AttendeeAvailabilityIndex index, List<MeetingRequest> requests, ForkJoinPool pool) {
+    MeetingQueryResult[] results = new MeetingQueryResult[requests.size()];
+    // Each request writes only its own slot, so the order is kept without any merging.
+    Runnable answerAll = () -> IntStream.range(0, results.length).parallel().forEach(i -> {
+      long startNanos = System.nanoTime();
+      MeetingRequest request = requests.get(i);
+      Collection<TimeRange> options = request.getOptionalAttendees().isEmpty()
+          ? index.query(request)
+          : index.queryWithOptionalAttendees(request);
+      results[i] = new MeetingQueryResult(options, System.nanoTime() - startNanos);
+    });
+    // A parallel stream started from within a pool's task runs on that pool.
+    pool.submit(answerAll).join();
+    return Arrays.asList(results);
+  }
+
+  /**
+   * Returns the {@code k} best times for {@code request} over {@code events} according to {@code
+   * scorer}, from best to worst, as by {@code RankedMeetingQuery}.
+   */
+  public List<RankedSlot> queryRanked(
+      Collection<Event> events, MeetingRequest request, SlotScorer scorer, int k) {
+    return new RankedMeetingQuery(new AttendeeAvailabilityIndex(events)).query(request, scorer, k);
+  }
+
+  /**
+   * Returns the ranges of the day when every required attendee of {@code request} and as many of
+   * its optional attendees as possible are free for the duration of the request, in order of start
+   * time. If there are no required attendees and no optional attendee can make any time, there are
+   * no such ranges.
+   *
+   * <p>Rather than trying subsets of the optional attendees, this counts for every possible start
+   * time how many optional attendees are busy at some point during a meeting starting then. Each
+   * busy range {@code [s, e)} rules out the start times {@code (s - duration, e)}, so every
+   * attendee's ruled-out start times are merged and added to a difference array over the day. A
+   * query takes O(n log n + m) time for n relevant events and m minutes in the day.
+   */
+  public Collection<TimeRange> queryWithOptionalAttendees(
+      Collection<Event> events, MeetingRequest request) {
+    int[] required = request.getAttendeeIds();
+    int[] optional = request.getOptionalAttendeeIds();
+
+    // Collect the busy ranges of the required attendees as a whole, and of each optional attendee.
+    long[] requiredBusy = new long[events.size()];
+    int requiredCount = 0;
+    Map<Integer, long[]> optionalBusy = new HashMap<>();
+    Map<Integer, Integer> optionalCounts = new HashMap<>();
+    for (Event event : events) {
+      TimeRange when = event.getWhen();
+      if (when.duration() <= 0) {
+        continue;
+      }
+      long packed = pack(when.start(), when.end());
+      if (AttendeeDictionary.intersects(event.getAttendeeIds(), required)) {
+        requiredBusy[requiredCount++] = packed;
+        continue;
+      }
+      for (int attendee : event.getAttendeeIds()) {
+        if (Arrays.binarySearch(optional, attendee) >= 0) {
+          int count = optionalCounts.getOrDefault(attendee, 0);
+          long[] busy = optionalBusy.get(attendee);
+          if (busy == null || busy.length == count) {
+            busy = Arrays.copyOf(busy == null ? new long[0] : busy, Math.max(4, count * 2));
+            optionalBusy.put(attendee, busy);
+          }
+          busy[count] = packed;
+          optionalCounts.put(attendee, count + 1);
+        }
+      }
+    }
+
+    Arrays.sort(requiredBusy, 0, requiredCount);
+    List<long[]> sortedOptionalBusy = new ArrayList<>();
+    for (Map.Entry<Integer, long[]> attendee : optionalBusy.entrySet()) {
+      long[] busy = Arrays.copyOf(attendee.getValue(), optionalCounts.get(attendee.getKey()));
+      Arrays.sort(busy);
+      sortedOptionalBusy.add(busy);
+    }
+    return findBestRanges(requiredBusy, requiredCount, !request.getAttendees().isEmpty(),
+        sortedOptionalBusy, request.getOptionalAttendees().size(), request.getDuration());
+  }
+
+  /**
+   * Returns the ranges of the day that the first {@code requiredCount} busy ranges leave free for
+   * at least {@code duration} minutes and that the most optional attendees can make, given the
+   * sorted busy ranges of each of the {@code optionalCount} optional attendees. Optional attendees
+   * without any busy ranges may be left out of {@code sortedOptionalBusy}.
+   */
+  static List<TimeRange> findBestRanges(long[] sortedRequiredBusy, int requiredCount,
+      boolean anyRequired, List<long[]> sortedOptionalBusy, int optionalCount, long duration) {
+    List<TimeRange> free = new ArrayList<>();
+    int minutesInDay = TimeRange.WHOLE_DAY.duration();
+    if (duration > minutesInDay) {
+      return free;
+    }
+    // A meeting can start at any time from 0 to lastStart (inclusive).
+    int lastStart = minutesInDay - (int) Math.max(duration, 1);
+
+    // busyCounts[t] is the number of optional attendees who can't make a meeting starting at t,
+    // built up as a difference array. Start times the required attendees can't make are marked
+    // with a count no optional attendee total can reach.
+    int[] busyCounts = new int[lastStart + 2];
+    int unavailable = optionalCount + 1;
+    addRuledOutStarts(
+        busyCounts, sortedRequiredBusy, requiredCount, duration, lastStart, unavailable);
+    for (long[] busy : sortedOptionalBusy) {
+      addRuledOutStarts(busyCounts, busy, busy.length, duration, lastStart, 1);
+    }
+    int fewestBusy = unavailable;
+    for (int start = 0; start <= lastStart; start++) {
+      if (start > 0) {
+        busyCounts[start] += busyCounts[start - 1];
+      }
+      fewestBusy = Math.min(fewestBusy, busyCounts[start]);
+    }
+
+    // With nobody required, a time that no optional attendee can make is no use to anyone.
+    if (fewestBusy >= unavailable
+        || (!anyRequired && optionalCount > 0 && fewestBusy == optionalCount)) {
+      return free;
+    }
+
+    // Every run of best start times [first, last] becomes the range [first, last + duration).
+    int start = 0;
+    while (start <= lastStart) {
+      if (busyCounts[start] != fewestBusy) {
+        start++;
+        continue;
+      }
+      int first = start;
+      while (start <= lastStart && busyCounts[start] == fewestBusy) {
+        start++;
+      }
+      free.add(TimeRange.fromStartEnd(first, (int) (start - 1 + Math.max(duration, 1)), false));
+    }
+    return free;
+  }
+
+  /**
+   * Adds {@code weight} to the difference array {@code counts} over every start time in [0,
+   * lastStart] that the first {@code count} sorted busy ranges rule out. The ruled-out start
+   * times are merged first, so that each set of ranges is counted at most once per start time.
+   */
+  private static void addRuledOutStarts(
+      int[] counts, long[] busy, int count, long duration, int lastStart, int weight) {
+    int runStart = -1;
+    int runEnd = -1;
+    for (int i = 0; i < count; i++) {
+      // A meeting starting in (start - duration, end) overlaps the range [start, end).
+      int start = (int) Math.max(0, unpackStart(busy[i]) - Math.max(duration, 1) + 1);
+      int end = Math.min(unpackEnd(busy[i]), lastStart + 1);
+      if (start >= end) {
+        continue;
+      }
+      if (start > runEnd) {
+        addRun(counts, runStart, runEnd, weight);
+        runStart = start;
+      }
+      runEnd = Math.max(runEnd, end);
+    }
+    addRun(counts, runStart, runEnd, weight);
+  }
+
+  private static void addRun(int[] counts, int start, int end, int weight) {
+    if (start < end) {
+      counts[start] += weight;
+      counts[end] -= weight;
+    }
+  }
+
+  /**
+   * Packs a range into a long that sorts by start and then by end.
+   */
+  static long pack(int start, int end) {
+    return ((long) start << 32) | (end & 0xFFFFFFFFL);
+  }
+
+  static int unpackStart(long packed) {
+    return (int) (packed >> 32);
+  }
+
+  static int unpackEnd(long packed) {
+    return (int) packed;
   }
 }
@@ -0,0 +1,147 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * HorizonMeetingQuery finds meeting times within any window of time, such as the next two weeks,
+ * rather than within one day.
+ */
+public final class HorizonMeetingQuery {
+  /**
+   * Returns the ranges within {@code window} when every required attendee of {@code request} is
+   * free for at least the duration of the request, in order of start time. Free time that runs
+   * over midnight is one range rather than one per day.
+   *
+   * <p>The ranges are found as the iterator is advanced. The busy ranges of the relevant events are
+   * heapified in O(n) time for n events rather than sorted, and each busy range swept past then
+   * takes O(log n) time. Finding the first free range in a month therefore doesn't find, or sort
+   * the events for, any of the others.
+   */
+  public Iterator<EpochRange> query(
+      Collection<EpochEvent> events, MeetingRequest request, EpochRange window) {
+    int[] attendees = request.getAttendeeIds();
+    List<EpochRange> busy = new ArrayList<>();
+    for (EpochEvent event : events) {
+      EpochRange when = event.getWhen();
+      if (when.overlaps(window)
+          && AttendeeDictionary.intersects(event.getAttendeeIds(), attendees)) {
+        busy.add(when);
+      }
+    }
+    return new FreeRangeIterator(busy, window, request.getDuration());
+  }
+
+  /**
+   * Returns the first range within {@code window} when every required attendee of {@code request}
+   * is free for at least the duration of the request, or null if there is none.
+   */
+  public EpochRange findFirst(
+      Collection<EpochEvent> events, MeetingRequest request, EpochRange window) {
+    Iterator<EpochRange> free = query(events, request, window);
+    return free.hasNext() ? free.next() : null;
+  }
+
+  /**
+   * Sweeps the busy ranges in order of start time, stopping at each free range long enough.
+   */
+  private static final class FreeRangeIterator implements Iterator<EpochRange> {
+    // A binary heap of the busy ranges not yet swept, ordered by start time.
+    private final EpochRange[] busy;
+    private int busyCount;
+    private final long windowEnd;
+    private final long duration;
+
+    // The start of the free time that follows everything swept so far.
+    private long freeStart;
+    private EpochRange next;
+
+    private FreeRangeIterator(Collection<EpochRange> busy, EpochRange window, long duration) {
+      this.busy = busy.toArray(new EpochRange[0]);
+      this.busyCount = this.busy.length;
+      // Sifting down from the last parent builds the heap in O(n) time, where adding the ranges
+      // one at a time would take O(n log n).
+      for (int i = busyCount / 2 - 1; i >= 0; i--) {
+        siftDown(i);
+      }
+      this.windowEnd = window.end();
+      this.duration = duration;
+      this.freeStart = window.start();
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (next == null && freeStart < windowEnd) {
+        EpochRange range = poll();
+        long start = range == null ? windowEnd : Math.min(range.start(), windowEnd);
+        if (start > freeStart && start - freeStart >= duration) {
+          next = EpochRange.fromStartEnd(freeStart, start);
+        }
+        // Overlapping and nested ranges only ever push the free time later.
+        freeStart = range == null ? windowEnd : Math.max(freeStart, range.end());
+      }
+      return next != null;
+    }
+
+    @Override
+    public EpochRange next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      EpochRange result = next;
+      next = null;
+      return result;
+    }
+
+    /**
+     * Removes and returns the busy range that starts first, or returns null if there are none left.
+     */
+    private EpochRange poll() {
+      if (busyCount == 0) {
+        return null;
+      }
+      EpochRange first = busy[0];
+      busy[0] = busy[--busyCount];
+      busy[busyCount] = null;
+      siftDown(0);
+      return first;
+    }
+
+    /**
+     * Moves the range at {@code i} down the heap until neither of its children starts before it.
+     */
+    private void siftDown(int i) {
+      EpochRange range = busy[i];
+      while (2 * i + 1 < busyCount) {
+        int child = 2 * i + 1;
+        if (child + 1 < busyCount
+            && EpochRange.ORDER_BY_START.compare(busy[child + 1], busy[child]) < 0) {
+          child++;
+        }
+        if (EpochRange.ORDER_BY_START.compare(busy[child], range) >= 0) {
+          break;
+        }
+        busy[i] = busy[child];
+        i = child;
+      }
+      busy[i] = range;
+    }
+  }
+}
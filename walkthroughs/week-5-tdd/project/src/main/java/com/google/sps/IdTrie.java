@@ -0,0 +1,144 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * IdTrie is an immutable map from the dense ids of the {@code AttendeeDictionary} to values, stored
+ * as a trie with 32 children per node. {@code with} copies only the nodes on the path to the id it
+ * changes and shares the rest with the trie it was made from, so an update takes O(log n) time for
+ * ids up to n, however many ids are mapped.
+ */
+final class IdTrie<T> {
+  private static final int BITS = 5;
+  private static final int WIDTH = 1 << BITS;
+  private static final int MASK = WIDTH - 1;
+
+  private static final IdTrie<?> EMPTY = new IdTrie<>(new Object[WIDTH], 0, 0);
+
+  // Inner nodes hold their children and leaves hold the values, both in Object[] of size WIDTH.
+  private final Object[] root;
+
+  // The number of bits of the id taken below the root. The trie holds the ids below
+  // 1 << (shift + BITS).
+  private final int shift;
+
+  private final int size;
+
+  private IdTrie(Object[] root, int shift, int size) {
+    this.root = root;
+    this.shift = shift;
+    this.size = size;
+  }
+
+  @SuppressWarnings("unchecked")
+  static <T> IdTrie<T> empty() {
+    return (IdTrie<T>) EMPTY;
+  }
+
+  /**
+   * Returns a trie holding {@code values[id]} for every id whose value isn't null, built without
+   * any copying.
+   */
+  static <T> IdTrie<T> of(T[] values) {
+    int shift = 0;
+    while (values.length > 1L << (shift + BITS)) {
+      shift += BITS;
+    }
+    int[] size = new int[1];
+    Object[] root = build(values, 0, shift, size);
+    return new IdTrie<>(root == null ? new Object[WIDTH] : root, shift, size[0]);
+  }
+
+  /**
+   * Returns the node at height {@code shift} holding the ids from {@code first}, or null if none of
+   * them has a value.
+   */
+  private static Object[] build(Object[] values, int first, int shift, int[] size) {
+    Object[] node = new Object[WIDTH];
+    boolean any = false;
+    for (int i = 0; i < WIDTH; i++) {
+      long id = first + ((long) i << shift);
+      if (id >= values.length) {
+        break;
+      }
+      Object child = shift == 0 ? values[(int) id] : build(values, (int) id, shift - BITS, size);
+      if (child != null) {
+        node[i] = child;
+        any = true;
+        if (shift == 0) {
+          size[0]++;
+        }
+      }
+    }
+    return any ? node : null;
+  }
+
+  /**
+   * Returns the value of {@code id}, or null if it has none.
+   */
+  @SuppressWarnings("unchecked")
+  T get(int id) {
+    if (id < 0 || id >= capacity()) {
+      return null;
+    }
+    Object[] node = root;
+    for (int level = shift; level > 0; level -= BITS) {
+      node = (Object[]) node[(id >>> level) & MASK];
+      if (node == null) {
+        return null;
+      }
+    }
+    return (T) node[id & MASK];
+  }
+
+  /**
+   * Returns a copy of this trie in which {@code id} has {@code value}, or has no value if {@code
+   * value} is null.
+   */
+  IdTrie<T> with(int id, T value) {
+    T previous = get(id);
+    if (previous == value) {
+      return this;
+    }
+    Object[] newRoot = root;
+    int newShift = shift;
+    while (id >= 1L << (newShift + BITS)) {
+      Object[] grown = new Object[WIDTH];
+      grown[0] = newRoot;
+      newRoot = grown;
+      newShift += BITS;
+    }
+    int newSize = size + (previous == null ? 1 : 0) - (value == null ? 1 : 0);
+    return new IdTrie<>(set(newRoot, newShift, id, value), newShift, newSize);
+  }
+
+  private static Object[] set(Object[] node, int shift, int id, Object value) {
+    Object[] copy = node == null ? new Object[WIDTH] : node.clone();
+    int slot = (id >>> shift) & MASK;
+    copy[slot] = shift == 0 ? value : set((Object[]) copy[slot], shift - BITS, id, value);
+    return copy;
+  }
+
+  /**
+   * Returns the number of ids with a value.
+   */
+  int size() {
+    return size;
+  }
+
+  private long capacity() {
+    return 1L << (shift + BITS);
+  }
+}
@@ -0,0 +1,193 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * IntervalTree finds the values whose ranges overlap a given range or contain a given point,
+ * without looking at every value. Each node of the tree is keyed by the start of its range and
+ * also records the furthest end of any range below it, so whole subtrees that end too early are
+ * skipped. A query that finds k values among n takes O(log n + k) time on average.
+ *
+ * <p>The tree is balanced as a treap: each node gets a random priority, and nodes with higher
+ * priorities are kept nearer the root. It is not safe to insert while another thread is querying.
+ */
+public final class IntervalTree<T> {
+  private final Random random = new Random();
+  private Node<T> root;
+  private int size;
+
+  /**
+   * Creates an empty tree.
+   */
+  public IntervalTree() {}
+
+  /**
+   * Creates a tree holding {@code values}, keyed by the range {@code rangeOf} returns for each.
+   * This builds a balanced tree in O(n log n) time for n values, without any rotations.
+   */
+  public IntervalTree(Collection<T> values, Function<T, TimeRange> rangeOf) {
+    List<Node<T>> nodes = new ArrayList<>(values.size());
+    for (T value : values) {
+      nodes.add(new Node<>(rangeOf.apply(value), value, 0));
+    }
+    nodes.sort((a, b) -> TimeRange.ORDER_BY_START.compare(a.range, b.range));
+    root = build(nodes, 0, nodes.size(), Integer.MAX_VALUE);
+    size = nodes.size();
+  }
+
+  /**
+   * Builds a balanced subtree of nodes [from, to), giving each node a lower priority than its
+   * parent so that later inserts keep the tree a treap.
+   */
+  private static <T> Node<T> build(List<Node<T>> nodes, int from, int to, int priority) {
+    if (from >= to) {
+      return null;
+    }
+    int middle = (from + to) >>> 1;
+    Node<T> node = nodes.get(middle);
+    node.priority = priority;
+    node.left = build(nodes, from, middle, priority - 1);
+    node.right = build(nodes, middle + 1, to, priority - 1);
+    node.update();
+    return node;
+  }
+
+  /**
+   * Returns the number of values in the tree.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Adds {@code value} to the tree, keyed by {@code range}, in O(log n) time on average.
+   */
+  public void insert(TimeRange range, T value) {
+    // Keep random priorities below those given out by a bulk build near the root.
+    root = insert(root, new Node<>(range, value, random.nextInt(Integer.MAX_VALUE / 2)));
+    size++;
+  }
+
+  private static <T> Node<T> insert(Node<T> node, Node<T> inserted) {
+    if (node == null) {
+      return inserted;
+    }
+    if (inserted.range.start() < node.range.start()) {
+      node.left = insert(node.left, inserted);
+      if (node.left.priority > node.priority) {
+        node = rotateRight(node);
+      }
+    } else {
+      node.right = insert(node.right, inserted);
+      if (node.right.priority > node.priority) {
+        node = rotateLeft(node);
+      }
+    }
+    node.update();
+    return node;
+  }
+
+  private static <T> Node<T> rotateRight(Node<T> node) {
+    Node<T> left = node.left;
+    node.left = left.right;
+    left.right = node;
+    node.update();
+    left.update();
+    return left;
+  }
+
+  private static <T> Node<T> rotateLeft(Node<T> node) {
+    Node<T> right = node.right;
+    node.right = right.left;
+    right.left = node;
+    node.update();
+    right.update();
+    return right;
+  }
+
+  /**
+   * Returns the values whose ranges overlap {@code range}, as by {@code TimeRange.overlaps}, in
+   * order of start time.
+   */
+  public List<T> overlapping(TimeRange range) {
+    List<T> found = new ArrayList<>();
+    // A range with no duration still finds the ranges that contain its start.
+    int end = Math.max(range.end(), range.start() + 1);
+    collect(root, range, end, found);
+    return found;
+  }
+
+  /**
+   * Returns the values whose ranges contain {@code point}, in order of start time.
+   */
+  public List<T> stabbing(int point) {
+    return overlapping(TimeRange.fromStartDuration(point, 0));
+  }
+
+  private static <T> void collect(Node<T> node, TimeRange range, int end, List<T> found) {
+    // Nothing below this node reaches the start of the range.
+    if (node == null || node.maxReach <= range.start()) {
+      return;
+    }
+    collect(node.left, range, end, found);
+    // Everything to the right starts at or after this node, so it starts too late as well.
+    if (node.range.start() >= end) {
+      return;
+    }
+    if (node.range.overlaps(range)) {
+      found.add(node.value);
+    }
+    collect(node.right, range, end, found);
+  }
+
+  private static final class Node<T> {
+    private final TimeRange range;
+    private final T value;
+    private int priority;
+    private Node<T> left;
+    private Node<T> right;
+
+    // The furthest point reached by any range in this subtree. A range with no duration counts as
+    // reaching one past its start, since it still overlaps ranges that contain its start.
+    private int maxReach;
+
+    private Node(TimeRange range, T value, int priority) {
+      this.range = range;
+      this.value = value;
+      this.priority = priority;
+      this.maxReach = reach(range);
+    }
+
+    private void update() {
+      maxReach = reach(range);
+      if (left != null) {
+        maxReach = Math.max(maxReach, left.maxReach);
+      }
+      if (right != null) {
+        maxReach = Math.max(maxReach, right.maxReach);
+      }
+    }
+
+    private static int reach(TimeRange range) {
+      return Math.max(range.end(), range.start() + 1);
+    }
+  }
+}
@@ -0,0 +1,182 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MeetingQueryCache remembers the answers to recent meeting requests. Requests for the same
+ * attendees, optional attendees and duration share an entry, whatever order the attendees were
+ * given in. Entries are keyed by the version of the index they were answered from, which no other
+ * index shares, so a change to the calendar or a query against another calendar never reaches
+ * them. They are dropped once they are too old or the cache is full.
+ */
+public final class MeetingQueryCache {
+  public static final int DEFAULT_MAX_ENTRIES = 1000;
+  public static final long DEFAULT_TTL_MS = TimeUnit.MINUTES.toMillis(5);
+
+  private final int maxEntries;
+  private final long ttlMs;
+
+  // Least recently used entries are evicted once there are more than maxEntries.
+  private final Map<Key, CachedOptions> entries;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  public MeetingQueryCache() {
+    this(DEFAULT_MAX_ENTRIES, DEFAULT_TTL_MS);
+  }
+
+  public MeetingQueryCache(int maxEntries, long ttlMs) {
+    this.maxEntries = maxEntries;
+    this.ttlMs = ttlMs;
+    this.entries = new LinkedHashMap<Key, CachedOptions>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, CachedOptions> eldest) {
+        if (size() > MeetingQueryCache.this.maxEntries) {
+          evictions.incrementAndGet();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Returns the answer to {@code request} against {@code index}, as by {@code query} or, if the
+   * request has optional attendees, {@code queryWithOptionalAttendees}. The returned collection is
+   * shared with other callers and can't be changed.
+   */
+  public Collection<TimeRange> query(AttendeeAvailabilityIndex index, MeetingRequest request) {
+    Key key = new Key(request, index.getVersion());
+    long now = System.currentTimeMillis();
+    synchronized (this) {
+      CachedOptions cached = entries.get(key);
+      if (cached != null && cached.expiresAt > now) {
+        hits.incrementAndGet();
+        return cached.options;
+      }
+    }
+    misses.incrementAndGet();
+
+    // Answer outside the lock, so that other requests aren't held up meanwhile.
+    List<TimeRange> options = Collections.unmodifiableList(new ArrayList<>(
+        request.getOptionalAttendees().isEmpty()
+            ? index.query(request)
+            : index.queryWithOptionalAttendees(request)));
+    synchronized (this) {
+      entries.put(key, new CachedOptions(options, now + ttlMs));
+    }
+    return options;
+  }
+
+  /**
+   * Returns the number of requests answered from the cache.
+   */
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  /**
+   * Returns the number of requests that had to be answered from the index.
+   */
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  /**
+   * Returns the fraction of requests answered from the cache, or 0 if there have been none.
+   */
+  public double getHitRate() {
+    long hitCount = hits.get();
+    long total = hitCount + misses.get();
+    return total == 0 ? 0 : (double) hitCount / total;
+  }
+
+  /**
+   * Returns the number of entries dropped to stay within the maximum number of entries.
+   */
+  public long getEvictionCount() {
+    return evictions.get();
+  }
+
+  /**
+   * Returns the number of entries currently cached, including any that have expired.
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * The parts of a request that its answer depends on, along with the version of the index.
+   */
+  private static final class Key {
+    private final List<String> attendees;
+    private final List<String> optionalAttendees;
+    private final long duration;
+    private final long version;
+
+    private Key(MeetingRequest request, long version) {
+      this.attendees = sorted(request.getAttendees());
+      this.optionalAttendees = sorted(request.getOptionalAttendees());
+      this.duration = request.getDuration();
+      this.version = version;
+    }
+
+    private static List<String> sorted(Collection<String> names) {
+      List<String> list = new ArrayList<>(names);
+      Collections.sort(list);
+      return list;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(attendees, optionalAttendees, duration, version);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      return duration == key.duration && version == key.version
+          && attendees.equals(key.attendees) && optionalAttendees.equals(key.optionalAttendees);
+    }
+  }
+
+  /**
+   * An answer along with the time it expires.
+   */
+  private static final class CachedOptions {
+    private final List<TimeRange> options;
+    private final long expiresAt;
+
+    private CachedOptions(List<TimeRange> options, long expiresAt) {
+      this.options = options;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
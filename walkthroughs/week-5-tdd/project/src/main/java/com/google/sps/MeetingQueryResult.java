@@ -0,0 +1,45 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+
+/**
+ * MeetingQueryResult holds the answer to one request of a batch of meeting queries, along with how
+ * long that request took to answer.
+ */
+public final class MeetingQueryResult {
+  private final Collection<TimeRange> options;
+  private final long latencyNanos;
+
+  public MeetingQueryResult(Collection<TimeRange> options, long latencyNanos) {
+    this.options = options;
+    this.latencyNanos = latencyNanos;
+  }
+
+  /**
+   * Returns the ranges when the meeting could take place, in order of start time.
+   */
+  public Collection<TimeRange> getOptions() {
+    return options;
+  }
+
+  /**
+   * Returns the time taken to answer the request, in nanoseconds.
+   */
+  public long getLatencyNanos() {
+    return latencyNanos;
+  }
+}
@@ -30,6 +30,15 @@ public final class MeetingRequest {
   // The duration of the meeting in minutes.
   private final long duration;
 
+  // The ids of the attendees in the {@code AttendeeDictionary}, worked out when first asked for.
+  private transient volatile KnownIds attendeeIds;
+  private transient volatile KnownIds optionalAttendeeIds;
+
+  // Used by Gson, so that the attendee sets start out empty when the JSON leaves them out.
+  private MeetingRequest() {
+    this(Collections.emptySet(), 0);
+  }
+
   public MeetingRequest(Collection<String> attendees, long duration) {
     this.duration = duration;
     this.attendees.addAll(attendees);
@@ -55,13 +64,63 @@ public final class MeetingRequest {
   public void addOptionalAttendee(String attendee) {
     if (!attendees.contains(attendee)) {
       optional_attendees.add(attendee);
+      optionalAttendeeIds = null;
     }
   }
 
+  /**
+   * Returns the sorted ids of the required attendees that are in the {@code AttendeeDictionary}.
+   * Attendees without an id have no events, so they are left out. The returned array must not be
+   * modified.
+   */
+  public int[] getAttendeeIds() {
+    KnownIds ids = KnownIds.update(attendeeIds, attendees);
+    attendeeIds = ids;
+    return ids.ids;
+  }
+
+  /**
+   * Returns the sorted ids of the optional attendees that are in the {@code AttendeeDictionary}.
+   * Attendees without an id have no events, so they are left out. The returned array must not be
+   * modified.
+   */
+  public int[] getOptionalAttendeeIds() {
+    KnownIds ids = KnownIds.update(optionalAttendeeIds, optional_attendees);
+    optionalAttendeeIds = ids;
+    return ids.ids;
+  }
+
   /**
    * Returns the duration of the meeting in minutes.
    */
   public long getDuration() {
     return duration;
   }
+
+  /**
+   * The ids of some attendees, along with the number of ids the {@code AttendeeDictionary} had
+   * given out when they were looked up.
+   */
+  private static final class KnownIds {
+    private final int[] ids;
+    private final int idCount;
+
+    private KnownIds(int[] ids, int idCount) {
+      this.ids = ids;
+      this.idCount = idCount;
+    }
+
+    /**
+     * Returns {@code known} if it still holds the ids of {@code names}, or else looks them up
+     * again. A name can only have been given a new id if the dictionary has given out more ids
+     * since. An id whose name has since been dropped is kept, since no event can hold it any more.
+     */
+    private static KnownIds update(KnownIds known, Collection<String> names) {
+      int idCount = AttendeeDictionary.idCount();
+      if (known != null && known.idCount == idCount) {
+        return known;
+      }
+      return new KnownIds(AttendeeDictionary.knownIdsOf(names), idCount);
+    }
+  }
 }
@@ -0,0 +1,141 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * RankedMeetingQuery suggests the best few times for a meeting rather than every time that works.
+ * It tries start times within the free time of the required attendees, scores each with a {@code
+ * SlotScorer}, and keeps only the best k in a heap. Start times are generated and scored one at a
+ * time, so the full list of them is never built.
+ */
+public final class RankedMeetingQuery {
+  // Start times are tried every STEP minutes, and at both edges of every free range.
+  public static final int STEP = 5;
+
+  // The most room the heap starts with, so a large k doesn't allocate before any slot is found.
+  private static final int INITIAL_HEAP_CAPACITY = 64;
+
+  // Orders the worst slot first, so that it is the one at the top of the heap to be replaced. Of
+  // two slots with the same score, the later one is worse.
+  private static final Comparator<RankedSlot> WORST_FIRST =
+      Comparator.comparingDouble(RankedSlot::getScore)
+          .thenComparing(slot -> slot.getWhen().start(), Comparator.reverseOrder());
+
+  private final AttendeeAvailabilityIndex index;
+
+  public RankedMeetingQuery(AttendeeAvailabilityIndex index) {
+    this.index = index;
+  }
+
+  /**
+   * Returns the {@code k} best times that every required attendee of {@code request} can make,
+   * according to {@code scorer}, from best to worst. Slots with equal scores are ordered by start
+   * time. A query that tries c start times takes O(c log k) time on top of scoring them.
+   */
+  public List<RankedSlot> query(MeetingRequest request, SlotScorer scorer, int k) {
+    if (k <= 0) {
+      return new ArrayList<>();
+    }
+    int duration = (int) Math.min(request.getDuration(), Integer.MAX_VALUE);
+    long[] requiredBusy = index.mergeAttendees(request.getAttendees());
+    List<TimeRange> free = FindMeetingQuery.findFreeRanges(requiredBusy, duration);
+
+    Collection<String> optional = request.getOptionalAttendees();
+    long[][] optionalBusy = new long[optional.size()][];
+    int i = 0;
+    for (String attendee : optional) {
+      optionalBusy[i++] = index.getBusy(attendee);
+    }
+    // The first busy range of each optional attendee that ends after the current start time. Start
+    // times only increase, so these only move forward.
+    int[] cursors = new int[optionalBusy.length];
+
+    SlotCandidate candidate = new SlotCandidate();
+    candidate.duration = duration;
+    candidate.optionalCount = optionalBusy.length;
+    PriorityQueue<RankedSlot> best =
+        new PriorityQueue<>(Math.min(k, INITIAL_HEAP_CAPACITY), WORST_FIRST);
+    for (TimeRange range : free) {
+      candidate.freeStart = range.start();
+      candidate.freeEnd = range.end();
+      int lastStart = range.end() - Math.max(duration, 1);
+      for (int start = range.start(); start <= lastStart; start = nextStart(start, lastStart)) {
+        candidate.start = start;
+        candidate.optionalFree = countFree(optionalBusy, cursors, start, start + duration);
+        offer(best, k, scorer.score(candidate), start, duration);
+      }
+    }
+
+    List<RankedSlot> ranked = new ArrayList<>(best);
+    ranked.sort(Collections.reverseOrder(WORST_FIRST));
+    return ranked;
+  }
+
+  /**
+   * Returns the start time to try after {@code start}: the next multiple of {@code STEP}, or
+   * {@code lastStart} if that comes first and has not been tried yet.
+   */
+  private static int nextStart(int start, int lastStart) {
+    int next = (start / STEP + 1) * STEP;
+    if (next > lastStart && start < lastStart) {
+      return lastStart;
+    }
+    return next;
+  }
+
+  /**
+   * Returns how many of the attendees with the sorted and merged {@code busy} ranges are free for
+   * all of [start, end), moving each attendee's cursor past the ranges that end by {@code start}.
+   */
+  private static int countFree(long[][] busy, int[] cursors, int start, int end) {
+    int free = 0;
+    for (int i = 0; i < busy.length; i++) {
+      long[] ranges = busy[i];
+      int cursor = cursors[i];
+      while (cursor < ranges.length && FindMeetingQuery.unpackEnd(ranges[cursor]) <= start) {
+        cursor++;
+      }
+      cursors[i] = cursor;
+      if (cursor == ranges.length || FindMeetingQuery.unpackStart(ranges[cursor]) >= end) {
+        free++;
+      }
+    }
+    return free;
+  }
+
+  /**
+   * Adds the slot to {@code best} if it is among the best {@code k} so far. A slot that would be
+   * dropped straight away is not created at all.
+   */
+  private static void offer(
+      PriorityQueue<RankedSlot> best, int k, double score, int start, int duration) {
+    if (best.size() == k) {
+      RankedSlot worst = best.peek();
+      // Slots arrive in order of start time, so a tie with the worst slot is never better than it.
+      if (score <= worst.getScore()) {
+        return;
+      }
+      best.poll();
+    }
+    best.add(new RankedSlot(TimeRange.fromStartDuration(start, duration), score));
+  }
+}
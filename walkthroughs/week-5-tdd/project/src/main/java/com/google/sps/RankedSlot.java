@@ -0,0 +1,47 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * RankedSlot is a suggested meeting time along with its score.
+ */
+public final class RankedSlot {
+  private final TimeRange when;
+  private final double score;
+
+  public RankedSlot(TimeRange when, double score) {
+    this.when = when;
+    this.score = score;
+  }
+
+  /**
+   * Returns when the meeting would take place.
+   */
+  public TimeRange getWhen() {
+    return when;
+  }
+
+  /**
+   * Returns the score of the meeting time. Higher scores are better.
+   */
+  public double getScore() {
+    return score;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s scored %.3f", when, score);
+  }
+}
@@ -0,0 +1,79 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * A possible start time for a meeting, as seen by a {@code SlotScorer}. The query reuses one
+ * candidate for every start time it tries, so a scorer must not keep it after returning.
+ */
+public final class SlotCandidate {
+  int start;
+  int duration;
+  int freeStart;
+  int freeEnd;
+  int optionalFree;
+  int optionalCount;
+
+  SlotCandidate() {}
+
+  /**
+   * Returns the start of the meeting in minutes.
+   */
+  public int getStart() {
+    return start;
+  }
+
+  /**
+   * Returns the duration of the meeting in minutes.
+   */
+  public int getDuration() {
+    return duration;
+  }
+
+  /**
+   * Returns the end of the meeting, which is not included in it.
+   */
+  public int getEnd() {
+    return start + duration;
+  }
+
+  /**
+   * Returns the start of the free time of the required attendees that the meeting falls in.
+   */
+  public int getFreeStart() {
+    return freeStart;
+  }
+
+  /**
+   * Returns the end of the free time of the required attendees that the meeting falls in.
+   */
+  public int getFreeEnd() {
+    return freeEnd;
+  }
+
+  /**
+   * Returns the number of optional attendees who are free for the whole meeting.
+   */
+  public int getOptionalFree() {
+    return optionalFree;
+  }
+
+  /**
+   * Returns the number of optional attendees of the request.
+   */
+  public int getOptionalCount() {
+    return optionalCount;
+  }
+}
@@ -0,0 +1,73 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * Scores a possible start time for a meeting. Higher scores are better. Scorers can be combined
+ * with {@code plus}, for example {@code preferredHours(540, 1020).plus(2, optionalCoverage())}.
+ */
+public interface SlotScorer {
+  double score(SlotCandidate candidate);
+
+  /**
+   * Returns a scorer that adds {@code weight} times the score of {@code other} to this one.
+   */
+  default SlotScorer plus(double weight, SlotScorer other) {
+    return candidate -> score(candidate) + weight * other.score(candidate);
+  }
+
+  /**
+   * Scores 1 for meetings that fall entirely within [start, end), such as working hours, and 0 for
+   * the rest.
+   */
+  static SlotScorer preferredHours(int start, int end) {
+    return candidate -> candidate.getStart() >= start && candidate.getEnd() <= end ? 1 : 0;
+  }
+
+  /**
+   * Scores from 1 for a meeting starting at {@code now} down to 0 for one starting a day later.
+   * Meetings starting before {@code now} score -1.
+   */
+  static SlotScorer soonAfter(int now) {
+    int day = TimeRange.WHOLE_DAY.duration();
+    return candidate -> candidate.getStart() < now
+        ? -1
+        : 1 - (double) (candidate.getStart() - now) / day;
+  }
+
+  /**
+   * Scores 1 for a meeting that leaves no gap too short for another meeting of the same length on
+   * either side of it in the attendees' free time, 0.5 if it leaves one, and 0 if it leaves two.
+   */
+  static SlotScorer lowFragmentation() {
+    return candidate -> {
+      int before = candidate.getStart() - candidate.getFreeStart();
+      int after = candidate.getFreeEnd() - candidate.getEnd();
+      int shortGaps = (before > 0 && before < candidate.getDuration() ? 1 : 0)
+          + (after > 0 && after < candidate.getDuration() ? 1 : 0);
+      return 1 - shortGaps * 0.5;
+    };
+  }
+
+  /**
+   * Scores the fraction of the optional attendees who are free for the whole meeting, or 1 if there
+   * are none.
+   */
+  static SlotScorer optionalCoverage() {
+    return candidate -> candidate.getOptionalCount() == 0
+        ? 1
+        : (double) candidate.getOptionalFree() / candidate.getOptionalCount();
+  }
+}
@@ -0,0 +1,241 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * TimeRangeList is a list of ranges packed into longs, with the start in the high 32 bits and the
+ * duration in the low 32 bits, so that sorting the longs sorts the ranges by start and then by
+ * duration. It can sort, merge and complement its ranges in place, so a list that is cleared and
+ * reused doesn't allocate once it has grown large enough. {@code TimeRange} objects are only
+ * created by {@code toTimeRanges}.
+ */
+public final class TimeRangeList {
+  // Lists shorter than this are sorted by Arrays.sort, which is faster for them.
+  private static final int RADIX_SORT_THRESHOLD = 64;
+
+  private long[] ranges;
+  private int size;
+
+  // Reused by radix sort.
+  private long[] scratch = new long[0];
+  private final int[] counts = new int[256];
+
+  public TimeRangeList() {
+    this(16);
+  }
+
+  public TimeRangeList(int capacity) {
+    ranges = new long[Math.max(1, capacity)];
+  }
+
+  /**
+   * Packs a range into a long that sorts by start and then by duration.
+   */
+  static long pack(int start, int duration) {
+    return ((long) start << 32) | (duration & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Returns the number of ranges in the list.
+   */
+  public int size() {
+    return size;
+  }
+
+  public int start(int i) {
+    return (int) (ranges[i] >> 32);
+  }
+
+  public int duration(int i) {
+    return (int) ranges[i];
+  }
+
+  /**
+   * Returns the end of range {@code i}, which is not included in the range.
+   */
+  public int end(int i) {
+    return start(i) + duration(i);
+  }
+
+  /**
+   * Removes every range, keeping the space they took up.
+   */
+  public void clear() {
+    size = 0;
+  }
+
+  /**
+   * Returns how many ranges the list can hold before it has to grow.
+   */
+  int capacity() {
+    return ranges.length;
+  }
+
+  /**
+   * Gives back the space kept beyond {@code capacity} ranges, or beyond the size of the list if
+   * that is larger, including the space kept for radix sorting. A reused list that was grown by one
+   * large query uses this so that it doesn't keep that space for good.
+   */
+  public void trimToCapacity(int capacity) {
+    int kept = Math.max(Math.max(1, capacity), size);
+    if (ranges.length > kept) {
+      ranges = Arrays.copyOf(ranges, kept);
+    }
+    if (scratch.length > kept) {
+      scratch = new long[0];
+    }
+  }
+
+  public void add(int start, int duration) {
+    ensureCapacity(size + 1);
+    ranges[size++] = pack(start, duration);
+  }
+
+  public void add(TimeRange range) {
+    add(range.start(), range.duration());
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > ranges.length) {
+      ranges = Arrays.copyOf(ranges, Math.max(capacity, ranges.length * 2));
+    }
+  }
+
+  /**
+   * Sorts the ranges by start and then by duration. Long lists are radix sorted a byte at a time,
+   * skipping the bytes that all ranges share, such as the high bytes of their starts.
+   */
+  public void sort() {
+    if (size < RADIX_SORT_THRESHOLD) {
+      Arrays.sort(ranges, 0, size);
+      return;
+    }
+    if (scratch.length < size) {
+      scratch = new long[ranges.length];
+    }
+    long[] from = ranges;
+    long[] to = scratch;
+    for (int shift = 0; shift < Long.SIZE; shift += 8) {
+      Arrays.fill(counts, 0);
+      for (int i = 0; i < size; i++) {
+        counts[digit(from[i], shift)]++;
+      }
+      if (counts[digit(from[0], shift)] == size) {
+        continue;
+      }
+      // Turn the counts into the position where each digit's ranges start.
+      int position = 0;
+      for (int digit = 0; digit < counts.length; digit++) {
+        int count = counts[digit];
+        counts[digit] = position;
+        position += count;
+      }
+      for (int i = 0; i < size; i++) {
+        to[counts[digit(from[i], shift)]++] = from[i];
+      }
+      long[] swap = from;
+      from = to;
+      to = swap;
+    }
+    if (from != ranges) {
+      // The sorted ranges ended up in the scratch array, so swap the two over.
+      scratch = ranges;
+      ranges = from;
+    }
+  }
+
+  /**
+   * Returns the byte of {@code value} at {@code shift}, treating the sign bit as the highest bit
+   * of an unsigned number so that negative starts sort first.
+   */
+  private static int digit(long value, int shift) {
+    return (int) (((value ^ Long.MIN_VALUE) >>> shift) & 0xFF);
+  }
+
+  /**
+   * Merges the overlapping and touching ranges of a sorted list, and drops the ranges with no
+   * duration. The list stays sorted.
+   */
+  public void mergeOverlaps() {
+    int merged = 0;
+    for (int i = 0; i < size; i++) {
+      int start = start(i);
+      int end = end(i);
+      if (end <= start) {
+        continue;
+      }
+      if (merged > 0 && start <= end(merged - 1)) {
+        int previousStart = start(merged - 1);
+        ranges[merged - 1] = pack(previousStart, Math.max(end(merged - 1), end) - previousStart);
+      } else {
+        ranges[merged++] = pack(start, end - start);
+      }
+    }
+    size = merged;
+  }
+
+  /**
+   * Replaces a sorted and merged list with the gaps it leaves in [windowStart, windowEnd), in
+   * order of start time.
+   */
+  public void complement(int windowStart, int windowEnd) {
+    // There is at most one more gap than there are ranges.
+    ensureCapacity(size + 1);
+    int gaps = 0;
+    int freeStart = windowStart;
+    int count = size;
+    for (int i = 0; i < count && freeStart < windowEnd; i++) {
+      // Range i is read before gap i is written over it.
+      int start = Math.min(start(i), windowEnd);
+      int end = end(i);
+      if (start > freeStart) {
+        ranges[gaps++] = pack(freeStart, start - freeStart);
+      }
+      freeStart = Math.max(freeStart, end);
+    }
+    if (windowEnd > freeStart) {
+      ranges[gaps++] = pack(freeStart, windowEnd - freeStart);
+    }
+    size = gaps;
+  }
+
+  /**
+   * Removes the ranges shorter than {@code minDuration}, keeping the order of the rest.
+   */
+  public void filterMinDuration(long minDuration) {
+    int kept = 0;
+    for (int i = 0; i < size; i++) {
+      if (duration(i) >= minDuration) {
+        ranges[kept++] = ranges[i];
+      }
+    }
+    size = kept;
+  }
+
+  /**
+   * Returns the ranges as {@code TimeRange} objects, in list order.
+   */
+  public List<TimeRange> toTimeRanges() {
+    List<TimeRange> list = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      list.add(TimeRange.fromStartDuration(start(i), duration(i)));
+    }
+    return list;
+  }
+}
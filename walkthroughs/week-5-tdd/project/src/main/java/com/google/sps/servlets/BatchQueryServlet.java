@@ -0,0 +1,78 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.Events;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingQueryResult;
+import com.google.sps.MeetingRequest;
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Answers a JSON array of meeting requests in one POST, all against the same version of the
+ * calendar. The response is an array of results in the same order, each with its options and its
+ * latency.
+ */
+@WebServlet("/query/batch")
+public class BatchQueryServlet extends HttpServlet {
+  // Concurrent batches share the threads of the common pool rather than each starting their own.
+  private static final ForkJoinPool POOL = ForkJoinPool.commonPool();
+
+  // The most requests one batch may hold, so that one POST can't tie up the pool.
+  static final int MAX_BATCH_SIZE = 100;
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Gson gson = new Gson();
+
+    // Convert the JSON to a list of MeetingRequests.
+    MeetingRequest[] meetingRequests = gson.fromJson(request.getReader(), MeetingRequest[].class);
+    if (meetingRequests == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected an array of requests");
+      return;
+    }
+    if (meetingRequests.length > MAX_BATCH_SIZE) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+          "A batch can hold at most " + MAX_BATCH_SIZE + " requests");
+      return;
+    }
+    for (MeetingRequest meetingRequest : meetingRequests) {
+      if (meetingRequest == null) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected a meeting request");
+        return;
+      }
+    }
+
+    // Find the possible meeting times for every request.
+    FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
+    List<MeetingQueryResult> answers =
+        findMeetingQuery.queryBatch(Events.getIndex(), Arrays.asList(meetingRequests), POOL);
+
+    // Convert the results to JSON
+    String jsonResponse = gson.toJson(answers);
+
+    // Send the JSON back as the response
+    response.setContentType("application/json");
+    response.getWriter().println(jsonResponse);
+  }
+}
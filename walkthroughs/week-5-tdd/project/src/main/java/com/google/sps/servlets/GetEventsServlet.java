@@ -14,23 +14,73 @@
 
 package com.google.sps.servlets;
 
+import com.google.sps.Event;
 import com.google.sps.Events;
+import com.google.sps.TimeRange;
 import com.google.gson.Gson;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+/**
+ * Lists the events of the calendar. Given {@code start} and {@code end} parameters in minutes,
+ * only the events that overlap [start, end) are listed.
+ */
 @WebServlet("/get-events")
 public class GetEventsServlet extends HttpServlet {
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
     Gson gson = new Gson();
-    String jsonResponse = gson.toJson(Events.events);
+    String jsonResponse;
+    if (request.getParameter("start") == null && request.getParameter("end") == null) {
+      // Events from a snapshot are only created as they are written out.
+      jsonResponse = gson.toJson(
+          Events.snapshot != null ? Events.snapshot.asList() : Events.store.getEvents());
+    } else {
+      TimeRange range = getRange(request);
+      if (range == null) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+            "start and end must be whole minutes with start before end");
+        return;
+      }
+      List<Event> events;
+      if (Events.snapshot != null) {
+        // Only the snapshot's events that overlap the range are created.
+        events = new ArrayList<>();
+        for (int i : Events.getSnapshotTree().overlapping(range)) {
+          events.add(Events.snapshot.getEvent(i));
+        }
+      } else {
+        events = Events.store.getEventTree().overlapping(range);
+      }
+      jsonResponse = gson.toJson(events);
+    }
 
     // Send the JSON back as the response
     response.setContentType("application/json");
     response.getWriter().println(jsonResponse);
   }
+
+  /**
+   * Returns the range given by the start and end parameters, which default to the start and end of
+   * the day, or null if they aren't a valid range.
+   */
+  private static TimeRange getRange(HttpServletRequest request) {
+    try {
+      int start = getMinutes(request, "start", TimeRange.START_OF_DAY);
+      int end = getMinutes(request, "end", TimeRange.WHOLE_DAY.end());
+      return start < end ? TimeRange.fromStartEnd(start, end, false) : null;
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static int getMinutes(HttpServletRequest request, String name, int defaultValue) {
+    String value = request.getParameter(name);
+    return value == null ? defaultValue : Integer.parseInt(value);
+  }
 }
@@ -0,0 +1,62 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.MeetingQueryCache;
+import com.google.gson.Gson;
+import java.io.IOException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Reports the statistics of the cache of answers to /query on this instance.
+ */
+@WebServlet("/query/cache-stats")
+public class QueryCacheStatsServlet extends HttpServlet {
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    MeetingQueryCache cache = QueryServlet.CACHE;
+    Stats stats = new Stats(cache.getHitCount(), cache.getMissCount(), cache.getHitRate(),
+        cache.getEvictionCount(), cache.size());
+
+    Gson gson = new Gson();
+    String jsonResponse = gson.toJson(stats);
+
+    // Send the JSON back as the response
+    response.setContentType("application/json");
+    response.getWriter().println(jsonResponse);
+  }
+
+  /**
+   * The statistics of the cache.
+   */
+  private static final class Stats {
+    private final long hits;
+    private final long misses;
+    private final double hitRate;
+    private final long evictions;
+    private final int size;
+
+    private Stats(long hits, long misses, double hitRate, long evictions, int size) {
+      this.hits = hits;
+      this.misses = misses;
+      this.hitRate = hitRate;
+      this.evictions = evictions;
+      this.size = size;
+    }
+  }
+}
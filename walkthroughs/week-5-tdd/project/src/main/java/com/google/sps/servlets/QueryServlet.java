@@ -15,12 +15,11 @@
 package com.google.sps.servlets;
 
 import com.google.sps.Events;
-import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingQueryCache;
 import com.google.sps.MeetingRequest;
 import com.google.sps.TimeRange;
 import com.google.gson.Gson;
 import java.io.IOException;
-import java.util.Arrays;
 import java.util.Collection;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -29,17 +28,22 @@ import javax.servlet.http.HttpServletResponse;
 
 @WebServlet("/query")
 public class QueryServlet extends HttpServlet {
+  // The UI sends the same request again whenever the form changes, so recent answers are kept.
+  static final MeetingQueryCache CACHE = new MeetingQueryCache();
+
   @Override
   public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
     Gson gson = new Gson();
 
     // Convert the JSON to an instance of MeetingRequest.
     MeetingRequest meetingRequest = gson.fromJson(request.getReader(), MeetingRequest.class);
+    if (meetingRequest == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected a meeting request");
+      return;
+    }
 
-    // Find the possible meeting times.
-    FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
-    Collection<TimeRange> answer =
-        findMeetingQuery.query(Arrays.asList(Events.events), meetingRequest);
+    // Find the possible meeting times, fitting in as many optional attendees as possible.
+    Collection<TimeRange> answer = CACHE.query(Events.getIndex(), meetingRequest);
 
     // Convert the times to JSON
     String jsonResponse = gson.toJson(answer);
@@ -0,0 +1,91 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.Events;
+import com.google.sps.MeetingRequest;
+import com.google.sps.RankedMeetingQuery;
+import com.google.sps.RankedSlot;
+import com.google.sps.SlotScorer;
+import com.google.sps.TimeRange;
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.util.List;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Answers a meeting request with only its best few times, each with its score. The k parameter
+ * sets how many times to return, from 1 to 100. Times within the preferredStart and preferredEnd
+ * minutes, soon after the now minute, that leave no unusable gaps, and that most optional
+ * attendees can make score highest.
+ */
+@WebServlet("/query/ranked")
+public class RankedQueryServlet extends HttpServlet {
+  private static final int DEFAULT_K = 5;
+  private static final int MAX_K = 100;
+  private static final int DEFAULT_PREFERRED_START = TimeRange.getTimeInMinutes(9, 0);
+  private static final int DEFAULT_PREFERRED_END = TimeRange.getTimeInMinutes(17, 0);
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Gson gson = new Gson();
+
+    int k;
+    SlotScorer scorer;
+    try {
+      k = getInt(request, "k", DEFAULT_K);
+      int preferredStart = getInt(request, "preferredStart", DEFAULT_PREFERRED_START);
+      int preferredEnd = getInt(request, "preferredEnd", DEFAULT_PREFERRED_END);
+      int now = getInt(request, "now", TimeRange.START_OF_DAY);
+      scorer = SlotScorer.preferredHours(preferredStart, preferredEnd)
+          .plus(1, SlotScorer.soonAfter(now))
+          .plus(1, SlotScorer.lowFragmentation())
+          .plus(2, SlotScorer.optionalCoverage());
+    } catch (NumberFormatException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Parameters must be whole numbers");
+      return;
+    }
+    if (k < 1 || k > MAX_K) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "k must be from 1 to " + MAX_K);
+      return;
+    }
+
+    // Convert the JSON to an instance of MeetingRequest.
+    MeetingRequest meetingRequest = gson.fromJson(request.getReader(), MeetingRequest.class);
+    if (meetingRequest == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected a meeting request");
+      return;
+    }
+
+    // Find the best meeting times.
+    RankedMeetingQuery query = new RankedMeetingQuery(Events.getIndex());
+    List<RankedSlot> answer = query.query(meetingRequest, scorer, k);
+
+    // Convert the times to JSON
+    String jsonResponse = gson.toJson(answer);
+
+    // Send the JSON back as the response
+    response.setContentType("application/json");
+    response.getWriter().println(jsonResponse);
+  }
+
+  private static int getInt(HttpServletRequest request, String name, int defaultValue) {
+    String value = request.getParameter(name);
+    return value == null ? defaultValue : Integer.parseInt(value);
+  }
+}
@@ -0,0 +1,111 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class AttendeeAvailabilityIndexTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  @Test
+  public void busyRangesAreMergedPerAttendee() {
+    // Person A's overlapping and touching events become one range, and Person B's event is left
+    // out of Person A's ranges.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A, PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_A)));
+    AttendeeAvailabilityIndex index = new AttendeeAvailabilityIndex(events);
+
+    long[] expected = {FindMeetingQuery.pack(TIME_0800AM, TIME_1000AM)};
+    Assert.assertArrayEquals(expected, index.getBusy(PERSON_A));
+    Assert.assertArrayEquals(new long[0], index.getBusy(PERSON_C));
+  }
+
+  @Test
+  public void onlyRequestedAttendeesAreMerged() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_C)));
+    AttendeeAvailabilityIndex index = new AttendeeAvailabilityIndex(events);
+
+    long[] expected = {FindMeetingQuery.pack(TIME_0800AM, TIME_0830AM),
+        FindMeetingQuery.pack(TIME_0900AM, TIME_0900AM + DURATION_30_MINUTES)};
+    Assert.assertArrayEquals(expected, index.mergeAttendees(Arrays.asList(PERSON_A, PERSON_B)));
+  }
+
+  @Test
+  public void matchesFindMeetingQueryOnRandomCalendars() {
+    Random random = new Random(2020);
+    FindMeetingQuery query = new FindMeetingQuery();
+    String[] people = {PERSON_A, PERSON_B, PERSON_C, "Person D", "Person E", "Person F"};
+
+    for (int trial = 0; trial < 300; trial++) {
+      List<Event> events = new ArrayList<>();
+      int eventCount = random.nextInt(30);
+      for (int i = 0; i < eventCount; i++) {
+        int start = random.nextInt(TimeRange.WHOLE_DAY.duration() + 60) - 30;
+        int duration = random.nextInt(240);
+        events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration),
+            randomPeople(random, people)));
+      }
+      AttendeeAvailabilityIndex index = new AttendeeAvailabilityIndex(events);
+      MeetingRequest request =
+          new MeetingRequest(randomPeople(random, people), random.nextInt(180));
+      for (String person : randomPeople(random, people)) {
+        request.addOptionalAttendee(person);
+      }
+
+      Assert.assertEquals(query.query(events, request), index.query(request));
+      Assert.assertEquals(query.queryWithOptionalAttendees(events, request),
+          index.queryWithOptionalAttendees(request));
+    }
+  }
+
+  private static List<String> randomPeople(Random random, String[] people) {
+    List<String> chosen = new ArrayList<>();
+    for (String person : people) {
+      if (random.nextInt(3) == 0) {
+        chosen.add(person);
+      }
+    }
+    return chosen;
+  }
+}
@@ -0,0 +1,104 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class AttendeeDictionaryTest {
+  @Test
+  public void idsAreStable() {
+    AttendeeDictionary.Entry entry = AttendeeDictionary.entryOf("Dictionary Person A");
+
+    Assert.assertSame(entry, AttendeeDictionary.entryOf("Dictionary Person A"));
+    Assert.assertEquals(entry.getId(), AttendeeDictionary.knownIdOf("Dictionary Person A"));
+    Assert.assertEquals("Dictionary Person A", entry.getName());
+    Assert.assertEquals(-1, AttendeeDictionary.knownIdOf("Dictionary Person Unknown"));
+  }
+
+  @Test
+  public void namesNoEventHoldsAreDropped() throws InterruptedException {
+    Event event = new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList("Dictionary Person F"));
+    int id = event.getAttendeeIds()[0];
+    Assert.assertEquals(id, AttendeeDictionary.knownIdOf("Dictionary Person F"));
+
+    event = null;
+    for (int attempt = 0; attempt < 100; attempt++) {
+      if (AttendeeDictionary.knownIdOf("Dictionary Person F") < 0) {
+        break;
+      }
+      System.gc();
+      Thread.sleep(10);
+    }
+    Assert.assertEquals(-1, AttendeeDictionary.knownIdOf("Dictionary Person F"));
+
+    // A name that comes back gets a new id, so the old one never means anyone else.
+    event = new Event("Event 2", TimeRange.WHOLE_DAY, Arrays.asList("Dictionary Person F"));
+    Assert.assertTrue(event.getAttendeeIds()[0] > id);
+  }
+
+  @Test
+  public void requestsDontAddNames() {
+    int idCount = AttendeeDictionary.idCount();
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList("Dictionary Person Requested"), 30);
+    request.addOptionalAttendee("Dictionary Person Optional");
+
+    Assert.assertEquals(0, request.getAttendeeIds().length);
+    Assert.assertEquals(0, request.getOptionalAttendeeIds().length);
+    Assert.assertEquals(idCount, AttendeeDictionary.idCount());
+    Assert.assertEquals(-1, AttendeeDictionary.knownIdOf("Dictionary Person Requested"));
+  }
+
+  @Test
+  public void idsAreSortedAndDistinct() {
+    AttendeeDictionary.Entry[] entries = AttendeeDictionary.entriesOf(
+        Arrays.asList("Dictionary Person C", "Dictionary Person B", "Dictionary Person C"));
+
+    Assert.assertEquals(2, entries.length);
+    Assert.assertTrue(entries[0].getId() < entries[1].getId());
+  }
+
+  @Test
+  public void intersects() {
+    Assert.assertTrue(AttendeeDictionary.intersects(new int[] {1, 4, 9}, new int[] {2, 4}));
+    Assert.assertFalse(AttendeeDictionary.intersects(new int[] {1, 4, 9}, new int[] {2, 5}));
+    Assert.assertFalse(AttendeeDictionary.intersects(new int[] {}, new int[] {2, 5}));
+    // Lopsided sizes are binary searched.
+    int[] many = new int[100];
+    for (int i = 0; i < many.length; i++) {
+      many[i] = i * 2;
+    }
+    Assert.assertTrue(AttendeeDictionary.intersects(new int[] {64}, many));
+    Assert.assertFalse(AttendeeDictionary.intersects(many, new int[] {65}));
+  }
+
+  @Test
+  public void eventAttendeesActAsASet() {
+    Event event = new Event("Event 1", TimeRange.WHOLE_DAY,
+        Arrays.asList("Dictionary Person D", "Dictionary Person E"));
+
+    Assert.assertEquals(
+        new HashSet<>(Arrays.asList("Dictionary Person D", "Dictionary Person E")),
+        event.getAttendees());
+    Assert.assertTrue(event.getAttendees().contains("Dictionary Person D"));
+    Assert.assertFalse(event.getAttendees().contains("Dictionary Person F"));
+  }
+}
@@ -0,0 +1,113 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class BitsetMeetingQueryTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  @Test
+  public void setRangeAcrossWords() {
+    long[] bits = new long[BitsetMeetingQuery.WORDS];
+    BitsetMeetingQuery.setRange(bits, 60, 130);
+
+    Assert.assertEquals(-1L << 60, bits[0]);
+    Assert.assertEquals(-1L, bits[1]);
+    Assert.assertEquals((1L << 2) - 1, bits[2]);
+    Assert.assertEquals(60, BitsetMeetingQuery.nextSetBit(bits, 0));
+    Assert.assertEquals(130, BitsetMeetingQuery.nextClearBit(bits, 60));
+  }
+
+  @Test
+  public void everyAttendeeIsConsidered() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)));
+    BitsetMeetingQuery query = new BitsetMeetingQuery(events);
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = query.query(request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void noOptionsForTooLongOfARequest() {
+    BitsetMeetingQuery query = new BitsetMeetingQuery(Collections.emptySet());
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A), TimeRange.WHOLE_DAY.duration() + 1);
+
+    Assert.assertEquals(Arrays.asList(), query.query(request));
+  }
+
+  @Test
+  public void matchesFindMeetingQueryOnRandomCalendars() {
+    Random random = new Random(2020);
+    FindMeetingQuery reference = new FindMeetingQuery();
+    String[] people = {PERSON_A, PERSON_B, "Person C", "Person D", "Person E", "Person F"};
+
+    for (int trial = 0; trial < 500; trial++) {
+      List<Event> events = new ArrayList<>();
+      int eventCount = random.nextInt(60);
+      for (int i = 0; i < eventCount; i++) {
+        int start = random.nextInt(TimeRange.WHOLE_DAY.duration() + 60) - 30;
+        int duration = random.nextInt(240);
+        events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration),
+            randomPeople(random, people)));
+      }
+      MeetingRequest request =
+          new MeetingRequest(randomPeople(random, people), random.nextInt(180));
+
+      Assert.assertEquals(reference.query(events, request),
+          new BitsetMeetingQuery(events).query(request));
+    }
+  }
+
+  private static List<String> randomPeople(Random random, String[] people) {
+    List<String> chosen = new ArrayList<>();
+    for (String person : people) {
+      if (random.nextInt(3) == 0) {
+        chosen.add(person);
+      }
+    }
+    return chosen;
+  }
+}
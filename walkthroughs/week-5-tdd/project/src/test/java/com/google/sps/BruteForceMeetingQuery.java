@@ -0,0 +1,119 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reference implementation of {@code FindMeetingQuery} that is too slow for real calendars but
+ * simple enough to be obviously correct. It marks every busy minute of the day one event at a time
+ * and then reads off the free runs. Tests compare the real engines against it.
+ */
+final class BruteForceMeetingQuery {
+  public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
+    int minutesInDay = TimeRange.WHOLE_DAY.duration();
+    boolean[] busy = new boolean[minutesInDay];
+    for (Event event : events) {
+      if (Collections.disjoint(event.getAttendees(), request.getAttendees())) {
+        continue;
+      }
+      for (int minute = 0; minute < minutesInDay; minute++) {
+        if (event.getWhen().contains(minute)) {
+          busy[minute] = true;
+        }
+      }
+    }
+
+    List<TimeRange> free = new ArrayList<>();
+    int minute = 0;
+    while (minute < minutesInDay) {
+      if (busy[minute]) {
+        minute++;
+        continue;
+      }
+      int start = minute;
+      while (minute < minutesInDay && !busy[minute]) {
+        minute++;
+      }
+      if (minute - start >= request.getDuration()) {
+        free.add(TimeRange.fromStartEnd(start, minute, false));
+      }
+    }
+    return free;
+  }
+
+  /**
+   * Reference for {@code FindMeetingQuery.queryWithOptionalAttendees}. For every start time it
+   * checks each event against a meeting starting then, and keeps the start times where all
+   * required attendees and the most optional attendees are free.
+   */
+  public Collection<TimeRange> queryWithOptionalAttendees(
+      Collection<Event> events, MeetingRequest request) {
+    int minutesInDay = TimeRange.WHOLE_DAY.duration();
+    int duration = (int) Math.max(request.getDuration(), 1);
+    List<TimeRange> free = new ArrayList<>();
+    if (request.getDuration() > minutesInDay) {
+      return free;
+    }
+
+    // freeCounts[t] is how many optional attendees can make a meeting starting at t, or -1 if a
+    // required attendee can't.
+    int lastStart = minutesInDay - duration;
+    int[] freeCounts = new int[lastStart + 1];
+    int mostFree = -1;
+    for (int start = 0; start <= lastStart; start++) {
+      TimeRange meeting = TimeRange.fromStartDuration(start, duration);
+      List<String> busyOptional = new ArrayList<>();
+      boolean requiredBusy = false;
+      for (Event event : events) {
+        if (!event.getWhen().overlaps(meeting) || event.getWhen().duration() <= 0) {
+          continue;
+        }
+        if (!Collections.disjoint(event.getAttendees(), request.getAttendees())) {
+          requiredBusy = true;
+        }
+        for (String attendee : request.getOptionalAttendees()) {
+          if (event.getAttendees().contains(attendee) && !busyOptional.contains(attendee)) {
+            busyOptional.add(attendee);
+          }
+        }
+      }
+      freeCounts[start] =
+          requiredBusy ? -1 : request.getOptionalAttendees().size() - busyOptional.size();
+      mostFree = Math.max(mostFree, freeCounts[start]);
+    }
+
+    if (mostFree < 0 || (mostFree == 0 && request.getAttendees().isEmpty()
+        && !request.getOptionalAttendees().isEmpty())) {
+      return free;
+    }
+    int start = 0;
+    while (start <= lastStart) {
+      if (freeCounts[start] != mostFree) {
+        start++;
+        continue;
+      }
+      int first = start;
+      while (start <= lastStart && freeCounts[start] == mostFree) {
+        start++;
+      }
+      free.add(TimeRange.fromStartEnd(first, start - 1 + duration, false));
+    }
+    return free;
+  }
+}
@@ -0,0 +1,88 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class CalendarSnapshotTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void snapshotIsReadBack() throws IOException {
+    List<Event> events = Arrays.asList(Events.events);
+    Path path = folder.getRoot().toPath().resolve("calendar.snapshot");
+
+    CalendarSnapshot.write(new ColumnarEventStore(events), path);
+    ColumnarEventStore store = CalendarSnapshot.read(path);
+
+    Assert.assertEquals(events, store.asList());
+    Assert.assertFalse(Files.exists(path.resolveSibling("calendar.snapshot.tmp")));
+  }
+
+  @Test
+  public void snapshotAnswersQueries() throws IOException {
+    List<Event> events = Arrays.asList(Events.events);
+    Path path = folder.getRoot().toPath().resolve("calendar.snapshot");
+    CalendarSnapshot.write(new ColumnarEventStore(events), path);
+    ColumnarEventStore store = CalendarSnapshot.read(path);
+
+    FindMeetingQuery query = new FindMeetingQuery();
+    MeetingRequest request = new MeetingRequest(Arrays.asList("Emma", "Liam"), 30);
+    request.addOptionalAttendee("Noah");
+
+    Assert.assertEquals(query.query(events, request), store.query(request));
+    Assert.assertEquals(query.queryWithOptionalAttendees(events, request),
+        store.queryWithOptionalAttendees(request));
+  }
+
+  @Test
+  public void snapshotOfSnapshotIsTheSame() throws IOException {
+    Path first = folder.getRoot().toPath().resolve("first.snapshot");
+    Path second = folder.getRoot().toPath().resolve("second.snapshot");
+
+    CalendarSnapshot.write(new ColumnarEventStore(Arrays.asList(Events.events)), first);
+    CalendarSnapshot.write(CalendarSnapshot.read(first), second);
+
+    Assert.assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second));
+  }
+
+  @Test(expected = IOException.class)
+  public void otherFilesAreRejected() throws IOException {
+    Path path = folder.newFile("not.snapshot").toPath();
+    Files.write(path, "not a snapshot at all".getBytes("UTF-8"));
+
+    CalendarSnapshot.read(path);
+  }
+
+  @Test
+  public void eventsSerializeLikeAList() {
+    ColumnarEventStore store = new ColumnarEventStore(Arrays.asList(Events.events));
+    Gson gson = new Gson();
+
+    Assert.assertEquals(gson.toJson(Events.events), gson.toJson(store.asList()));
+  }
+}
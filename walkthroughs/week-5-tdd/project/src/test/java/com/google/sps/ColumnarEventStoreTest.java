@@ -0,0 +1,130 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class ColumnarEventStoreTest {
+  @Test
+  public void eventsAreReadBack() {
+    List<Event> events = Arrays.asList(Events.events);
+    ColumnarEventStore store = new ColumnarEventStore(events);
+
+    Assert.assertEquals(events.size(), store.size());
+    Assert.assertEquals(events, store.asList());
+  }
+
+  @Test
+  public void titlesAreUtf8() {
+    Event event = new Event("Café ☕", TimeRange.WHOLE_DAY, Collections.emptyList());
+    ColumnarEventStore store = new ColumnarEventStore(Arrays.asList(event));
+
+    Assert.assertEquals("Café ☕", store.getTitle(0));
+  }
+
+  @Test
+  public void matchesFindMeetingQueryOnRandomCalendars() {
+    Random random = new Random(2020);
+    FindMeetingQuery reference = new FindMeetingQuery();
+    String[] people = {"Person A", "Person B", "Person C", "Person D", "Person E"};
+
+    for (int trial = 0; trial < 300; trial++) {
+      List<Event> events = new ArrayList<>();
+      int eventCount = random.nextInt(30);
+      for (int i = 0; i < eventCount; i++) {
+        int start = random.nextInt(TimeRange.WHOLE_DAY.duration() + 60) - 30;
+        events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, random.nextInt(240)),
+            randomPeople(random, people)));
+      }
+      MeetingRequest request =
+          new MeetingRequest(randomPeople(random, people), random.nextInt(180));
+
+      Assert.assertEquals(reference.query(events, request),
+          new ColumnarEventStore(events).query(request));
+    }
+  }
+
+  @Test
+  public void indexMatchesStoreOnRandomCalendars() {
+    Random random = new Random(2021);
+    String[] people = {"Person A", "Person B", "Person C", "Person D", "Person E"};
+
+    for (int trial = 0; trial < 300; trial++) {
+      List<Event> events = new ArrayList<>();
+      int eventCount = random.nextInt(30);
+      for (int i = 0; i < eventCount; i++) {
+        int start = random.nextInt(TimeRange.WHOLE_DAY.duration() + 60) - 30;
+        events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, random.nextInt(240)),
+            randomPeople(random, people)));
+      }
+      MeetingRequest request =
+          new MeetingRequest(randomPeople(random, people), random.nextInt(180));
+      for (String person : randomPeople(random, people)) {
+        request.addOptionalAttendee(person);
+      }
+      ColumnarEventStore store = new ColumnarEventStore(events);
+      AttendeeAvailabilityIndex index = store.buildIndex();
+
+      Assert.assertEquals(store.query(request), index.query(request));
+      Assert.assertEquals(store.queryWithOptionalAttendees(request),
+          index.queryWithOptionalAttendees(request));
+    }
+  }
+
+  @Test
+  public void eventTreeFindsTheSameEventsAsATreeOfEvents() {
+    Random random = new Random(2022);
+    String[] people = {"Person A", "Person B", "Person C"};
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      int start = random.nextInt(TimeRange.WHOLE_DAY.duration());
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, random.nextInt(120)),
+          randomPeople(random, people)));
+    }
+    ColumnarEventStore store = new ColumnarEventStore(events);
+    EventIndexTree indexTree = store.buildEventTree();
+    IntervalTree<Event> eventTree = new IntervalTree<>(events, Event::getWhen);
+
+    for (int trial = 0; trial < 100; trial++) {
+      int start = random.nextInt(TimeRange.WHOLE_DAY.duration());
+      TimeRange range = TimeRange.fromStartDuration(start, 1 + random.nextInt(120));
+      List<Event> found = new ArrayList<>();
+      for (int i : indexTree.overlapping(range)) {
+        found.add(store.getEvent(i));
+      }
+      Assert.assertEquals(new HashSet<>(eventTree.overlapping(range)), new HashSet<>(found));
+    }
+  }
+
+  private static List<String> randomPeople(Random random, String[] people) {
+    List<String> chosen = new ArrayList<>();
+    for (String person : people) {
+      if (random.nextInt(3) == 0) {
+        chosen.add(person);
+      }
+    }
+    return chosen;
+  }
+}
@@ -0,0 +1,67 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class EventIndexTreeTest {
+  @Test
+  public void matchesLinearScanOnRandomRanges() {
+    Random random = new Random(2021);
+    for (int trial = 0; trial < 100; trial++) {
+      List<Event> events = new ArrayList<>();
+      int count = random.nextInt(200);
+      for (int i = 0; i < count; i++) {
+        // Some events have no duration, and some share a start.
+        int start = random.nextInt(TimeRange.WHOLE_DAY.duration() / 10) * 10;
+        TimeRange when = TimeRange.fromStartDuration(start, random.nextInt(4) * 30);
+        events.add(new Event("Event " + i, when, Collections.emptyList()));
+      }
+      EventIndexTree tree = new ColumnarEventStore(events).buildEventTree();
+      Assert.assertEquals(count, tree.size());
+
+      int start = random.nextInt(TimeRange.WHOLE_DAY.duration());
+      TimeRange range = TimeRange.fromStartDuration(start, random.nextInt(3) * 45);
+      Assert.assertArrayEquals(scan(events, range), tree.overlapping(range));
+      Assert.assertArrayEquals(
+          scan(events, TimeRange.fromStartDuration(start, 0)), tree.stabbing(start));
+    }
+  }
+
+  /**
+   * Returns the indices of the events that overlap {@code range}, in order of start time and then
+   * of index.
+   */
+  private static int[] scan(List<Event> events, TimeRange range) {
+    List<Integer> found = new ArrayList<>();
+    for (int i = 0; i < events.size(); i++) {
+      if (events.get(i).getWhen().overlaps(range)) {
+        found.add(i);
+      }
+    }
+    found.sort((a, b) -> Integer.compare(
+        events.get(a).getWhen().start(), events.get(b).getWhen().start()));
+    return found.stream().mapToInt(Integer::intValue).toArray();
+  }
+}
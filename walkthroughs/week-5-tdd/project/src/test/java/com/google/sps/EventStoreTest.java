@@ -0,0 +1,123 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class EventStoreTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  @Test
+  public void snapshotsDoNotSeeLaterChanges() {
+    Event event = new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+        Arrays.asList(PERSON_A));
+    EventStore store = new EventStore(Collections.emptyList());
+    AttendeeAvailabilityIndex before = store.getIndex();
+
+    store.add(event);
+    AttendeeAvailabilityIndex after = store.getIndex();
+
+    Assert.assertArrayEquals(new long[0], before.getBusy(PERSON_A));
+    Assert.assertArrayEquals(
+        new long[] {FindMeetingQuery.pack(TIME_0800AM, TIME_0900AM)}, after.getBusy(PERSON_A));
+  }
+
+  @Test
+  public void removingOneOfTwoOverlappingEventsKeepsTheOther() {
+    Event first = new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false),
+        Arrays.asList(PERSON_A));
+    Event second = new Event("Event 2", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+        Arrays.asList(PERSON_A, PERSON_B));
+    EventStore store = new EventStore(Arrays.asList(first, second));
+
+    Assert.assertTrue(store.remove(first));
+    Assert.assertFalse(store.remove(first));
+
+    Assert.assertArrayEquals(new long[] {FindMeetingQuery.pack(TIME_0800AM, TIME_0900AM)},
+        store.getIndex().getBusy(PERSON_A));
+    Assert.assertEquals(Arrays.asList(second), store.getEvents());
+  }
+
+  @Test
+  public void eventTreeSeesChanges() {
+    Event event = new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+        Arrays.asList(PERSON_A));
+    EventStore store = new EventStore(Arrays.asList(event));
+    TimeRange query = TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false);
+    Assert.assertEquals(Arrays.asList(event), store.getEventTree().overlapping(query));
+
+    store.remove(event);
+
+    Assert.assertEquals(Collections.emptyList(), store.getEventTree().overlapping(query));
+  }
+
+  @Test
+  public void matchesRebuiltIndexAfterRandomEdits() {
+    Random random = new Random(2020);
+    String[] people = {PERSON_A, PERSON_B, "Person C", "Person D", "Person E"};
+    FindMeetingQuery query = new FindMeetingQuery();
+
+    List<Event> events = new ArrayList<>();
+    EventStore store = new EventStore(events);
+    for (int edit = 0; edit < 500; edit++) {
+      int choice = random.nextInt(3);
+      Event event = new Event("Event " + random.nextInt(20),
+          TimeRange.fromStartDuration(random.nextInt(1400), random.nextInt(120)),
+          randomPeople(random, people));
+      if (choice == 0 || events.isEmpty()) {
+        events.add(event);
+        store.add(event);
+      } else if (choice == 1) {
+        Assert.assertTrue(store.remove(events.remove(random.nextInt(events.size()))));
+      } else {
+        Event old = events.get(random.nextInt(events.size()));
+        events.set(events.indexOf(old), event);
+        Assert.assertTrue(store.update(old, event));
+      }
+
+      MeetingRequest request = new MeetingRequest(randomPeople(random, people), 30);
+      Assert.assertEquals(query.query(events, request), store.getIndex().query(request));
+      // Each edit only splices the changed ranges, which must match merging them all again.
+      AttendeeAvailabilityIndex rebuilt = new AttendeeAvailabilityIndex(events);
+      for (String person : people) {
+        Assert.assertArrayEquals(rebuilt.getBusy(person), store.getIndex().getBusy(person));
+      }
+    }
+  }
+
+  private static List<String> randomPeople(Random random, String[] people) {
+    List<String> chosen = new ArrayList<>();
+    for (String person : people) {
+      if (random.nextInt(3) == 0) {
+        chosen.add(person);
+      }
+    }
+    return chosen;
+  }
+}
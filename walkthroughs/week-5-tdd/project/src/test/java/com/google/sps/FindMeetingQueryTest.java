@@ -19,6 +19,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -34,6 +35,8 @@ public final class FindMeetingQueryTest {
   // Some people that we can use in our tests.
   private static final String PERSON_A = "Person A";
   private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+  private static final String PERSON_D = "Person D";
 
   // All dates are the first day of the year 2020.
   private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
@@ -270,5 +273,173 @@ public final class FindMeetingQueryTest {
 
     Assert.assertEquals(expected, actual);
   }
-}
 
+  @Test
+  public void matchesBruteForceOnRandomCalendars() {
+    // Compare against the simple reference implementation on many random calendars, including
+    // events that overlap, nest, touch and run off either end of the day.
+    Random random = new Random(2020);
+    BruteForceMeetingQuery reference = new BruteForceMeetingQuery();
+    String[] people = {PERSON_A, PERSON_B, PERSON_C, PERSON_D, "Person E"};
+
+    for (int trial = 0; trial < 500; trial++) {
+      List<Event> events = new ArrayList<>();
+      int eventCount = random.nextInt(30);
+      for (int i = 0; i < eventCount; i++) {
+        int start = random.nextInt(TimeRange.WHOLE_DAY.duration() + 60) - 30;
+        int duration = random.nextInt(180);
+        events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration),
+            randomPeople(random, people)));
+      }
+      MeetingRequest request =
+          new MeetingRequest(randomPeople(random, people), 1 + random.nextInt(120));
+
+      Assert.assertEquals(reference.query(events, request), query.query(events, request));
+    }
+  }
+
+  @Test
+  public void optionalAttendeeIsConsidered() {
+    // The optional attendee C is busy for part of the time everyone required is free, so only the
+    // times C can make are returned.
+    //
+    // Events  :       |--A--|     |--B--|
+    //                   |C|
+    // Day     : |-----------------------------|
+    // Options : |--1--|     |--2--|     |--3--|
+    // Optional: |--1--|             |--3--|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_C)));
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+
+    Collection<TimeRange> actual = query.queryWithOptionalAttendees(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void mostOptionalAttendeesAreConsidered() {
+    // Nobody can make a time when both optional attendees are free, so the times when one of them
+    // is free are returned instead.
+    //
+    // Events  : |------C------|
+    //                 |--------D--------|
+    // Day     : |-----------------------|
+    // Optional:                 |-------|
+    //           |-----|         (either C or D)
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_1000AM, false),
+            Arrays.asList(PERSON_C)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0830AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_D)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+    request.addOptionalAttendee(PERSON_D);
+
+    Collection<TimeRange> actual = query.queryWithOptionalAttendees(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void noTimeForOnlyOptionalAttendees() {
+    // With no required attendees, a time that no optional attendee can make is not an option.
+    Collection<Event> events = Arrays.asList(new Event("Event 1", TimeRange.WHOLE_DAY,
+        Arrays.asList(PERSON_C)));
+
+    MeetingRequest request = new MeetingRequest(NO_ATTENDEES, DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+
+    Collection<TimeRange> actual = query.queryWithOptionalAttendees(events, request);
+    Collection<TimeRange> expected = Arrays.asList();
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void optionalModeMatchesBruteForceOnRandomCalendars() {
+    Random random = new Random(2021);
+    BruteForceMeetingQuery reference = new BruteForceMeetingQuery();
+    String[] people = {PERSON_A, PERSON_B, PERSON_C, PERSON_D, "Person E", "Person F"};
+
+    for (int trial = 0; trial < 100; trial++) {
+      List<Event> events = new ArrayList<>();
+      int eventCount = random.nextInt(20);
+      for (int i = 0; i < eventCount; i++) {
+        int start = random.nextInt(TimeRange.WHOLE_DAY.duration() + 60) - 30;
+        int duration = random.nextInt(240);
+        events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration),
+            randomPeople(random, people)));
+      }
+      MeetingRequest request =
+          new MeetingRequest(randomPeople(random, people), 1 + random.nextInt(120));
+      for (String person : randomPeople(random, people)) {
+        request.addOptionalAttendee(person);
+      }
+
+      Assert.assertEquals(reference.queryWithOptionalAttendees(events, request),
+          query.queryWithOptionalAttendees(events, request));
+    }
+  }
+
+  @Test
+  public void batchMatchesSingleQueriesInOrder() {
+    Random random = new Random(2022);
+    String[] people = {PERSON_A, PERSON_B, PERSON_C, PERSON_D, "Person E", "Person F"};
+
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      int start = random.nextInt(TimeRange.WHOLE_DAY.duration());
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, random.nextInt(120)),
+          randomPeople(random, people)));
+    }
+    List<MeetingRequest> requests = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      MeetingRequest request =
+          new MeetingRequest(randomPeople(random, people), 1 + random.nextInt(120));
+      if (random.nextBoolean()) {
+        request.addOptionalAttendee(people[random.nextInt(people.length)]);
+      }
+      requests.add(request);
+    }
+
+    List<MeetingQueryResult> results = query.queryBatch(events, requests);
+
+    Assert.assertEquals(requests.size(), results.size());
+    for (int i = 0; i < requests.size(); i++) {
+      MeetingRequest request = requests.get(i);
+      Collection<TimeRange> expected = request.getOptionalAttendees().isEmpty()
+          ? query.query(events, request)
+          : query.queryWithOptionalAttendees(events, request);
+      Assert.assertEquals(expected, results.get(i).getOptions());
+      Assert.assertTrue(results.get(i).getLatencyNanos() >= 0);
+    }
+  }
+
+  private static List<String> randomPeople(Random random, String[] people) {
+    List<String> chosen = new ArrayList<>();
+    for (String person : people) {
+      if (random.nextInt(3) == 0) {
+        chosen.add(person);
+      }
+    }
+    return chosen;
+  }
+}
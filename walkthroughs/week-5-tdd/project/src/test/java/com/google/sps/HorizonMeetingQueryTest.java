@@ -0,0 +1,149 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class HorizonMeetingQueryTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  // 2020-01-01 is 18262 days after the epoch.
+  private static final long DAY_2020_01_01 = 18262;
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0500PM = TimeRange.getTimeInMinutes(17, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private HorizonMeetingQuery query;
+
+  @Before
+  public void setUp() {
+    query = new HorizonMeetingQuery();
+  }
+
+  @Test
+  public void freeTimeRunsOverMidnight() {
+    // Person A works 9 to 5 every day, so the free time runs from 5 PM to 9 AM the next day.
+    List<EpochEvent> events = new ArrayList<>();
+    for (int day = 0; day < 3; day++) {
+      events.add(new EpochEvent("Work", EpochRange.onDay(DAY_2020_01_01 + day,
+          TimeRange.fromStartEnd(TIME_0900AM, TIME_0500PM, false)), Arrays.asList(PERSON_A)));
+    }
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    List<EpochRange> actual = toList(
+        query.query(events, request, EpochRange.ofDays(DAY_2020_01_01, 2)));
+    long dayStart = DAY_2020_01_01 * EpochRange.MINUTES_PER_DAY;
+    List<EpochRange> expected = Arrays.asList(
+        EpochRange.fromStartEnd(dayStart, dayStart + TIME_0900AM),
+        EpochRange.fromStartEnd(dayStart + TIME_0500PM,
+            dayStart + EpochRange.MINUTES_PER_DAY + TIME_0900AM),
+        EpochRange.fromStartEnd(dayStart + EpochRange.MINUTES_PER_DAY + TIME_0500PM,
+            dayStart + 2 * EpochRange.MINUTES_PER_DAY));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void firstFreeSlotInALongWindow() {
+    // Person A is busy for the first hour of the window, and Person B's events don't matter.
+    long start = DAY_2020_01_01 * EpochRange.MINUTES_PER_DAY;
+    Collection<EpochEvent> events = Arrays.asList(
+        new EpochEvent("Event 1", EpochRange.fromStartDuration(start, 60),
+            Arrays.asList(PERSON_A)),
+        new EpochEvent("Event 2", EpochRange.fromStartDuration(start + 60, 60),
+            Arrays.asList(PERSON_B)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    EpochRange actual =
+        query.findFirst(events, request, EpochRange.ofDays(DAY_2020_01_01, 3650));
+
+    Assert.assertEquals(
+        EpochRange.fromStartEnd(start + 60, start + 3650 * EpochRange.MINUTES_PER_DAY), actual);
+  }
+
+  @Test
+  public void noTimeInWindow() {
+    long start = DAY_2020_01_01 * EpochRange.MINUTES_PER_DAY;
+    Collection<EpochEvent> events = Arrays.asList(new EpochEvent("Event 1",
+        EpochRange.fromStartDuration(start - 60, 120), Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Assert.assertNull(
+        query.findFirst(events, request, EpochRange.fromStartDuration(start, 60)));
+    Assert.assertFalse(
+        query.query(Collections.emptyList(), request, EpochRange.fromStartDuration(start, 20))
+            .hasNext());
+  }
+
+  @Test
+  public void oneDayWindowMatchesFindMeetingQuery() {
+    Random random = new Random(2020);
+    FindMeetingQuery reference = new FindMeetingQuery();
+    String[] people = {PERSON_A, PERSON_B, "Person C", "Person D"};
+
+    for (int trial = 0; trial < 200; trial++) {
+      List<Event> events = new ArrayList<>();
+      List<EpochEvent> epochEvents = new ArrayList<>();
+      int eventCount = random.nextInt(20);
+      for (int i = 0; i < eventCount; i++) {
+        Event event = new Event("Event " + i, TimeRange.fromStartDuration(
+            random.nextInt(TimeRange.WHOLE_DAY.duration()), 1 + random.nextInt(180)),
+            randomPeople(random, people));
+        events.add(event);
+        epochEvents.add(EpochEvent.onDay(DAY_2020_01_01, event));
+      }
+      MeetingRequest request =
+          new MeetingRequest(randomPeople(random, people), random.nextInt(180));
+
+      List<EpochRange> expected = new ArrayList<>();
+      for (TimeRange range : reference.query(events, request)) {
+        expected.add(EpochRange.onDay(DAY_2020_01_01, range));
+      }
+      Assert.assertEquals(expected,
+          toList(query.query(epochEvents, request, EpochRange.ofDays(DAY_2020_01_01, 1))));
+    }
+  }
+
+  private static List<EpochRange> toList(Iterator<EpochRange> ranges) {
+    List<EpochRange> list = new ArrayList<>();
+    ranges.forEachRemaining(list::add);
+    return list;
+  }
+
+  private static List<String> randomPeople(Random random, String[] people) {
+    List<String> chosen = new ArrayList<>();
+    for (String person : people) {
+      if (random.nextInt(3) == 0) {
+        chosen.add(person);
+      }
+    }
+    return chosen;
+  }
+}
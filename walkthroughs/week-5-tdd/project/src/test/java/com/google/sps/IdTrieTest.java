@@ -0,0 +1,72 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class IdTrieTest {
+  @Test
+  public void withLeavesTheOriginalUnchanged() {
+    IdTrie<String> empty = IdTrie.empty();
+    IdTrie<String> one = empty.with(3, "three");
+    IdTrie<String> grown = one.with(5000, "five thousand");
+
+    Assert.assertNull(empty.get(3));
+    Assert.assertEquals("three", one.get(3));
+    Assert.assertNull(one.get(5000));
+    Assert.assertEquals("three", grown.get(3));
+    Assert.assertEquals("five thousand", grown.get(5000));
+    Assert.assertEquals(2, grown.size());
+    Assert.assertEquals(1, grown.with(3, null).size());
+    Assert.assertNull(grown.with(3, null).get(3));
+  }
+
+  @Test
+  public void matchesHashMapAfterRandomChanges() {
+    Random random = new Random(2020);
+    String[] initial = new String[700];
+    Map<Integer, String> expected = new HashMap<>();
+    for (int id = 0; id < initial.length; id++) {
+      if (random.nextBoolean()) {
+        initial[id] = "value " + id;
+        expected.put(id, initial[id]);
+      }
+    }
+    IdTrie<String> trie = IdTrie.of(initial);
+
+    for (int change = 0; change < 2000; change++) {
+      int id = random.nextInt(40000);
+      String value = random.nextInt(3) == 0 ? null : "value " + change;
+      trie = trie.with(id, value);
+      if (value == null) {
+        expected.remove(id);
+      } else {
+        expected.put(id, value);
+      }
+    }
+
+    Assert.assertEquals(expected.size(), trie.size());
+    for (int id = 0; id < 40000; id++) {
+      Assert.assertEquals(expected.get(id), trie.get(id));
+    }
+  }
+}
@@ -0,0 +1,100 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class IntervalTreeTest {
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  @Test
+  public void overlappingEvents() {
+    // Which events overlap 10:00-11:00?
+    //
+    // Events : |--1--|
+    //                |--2--|
+    //                     |--3--|
+    //          |-------4-------|
+    // Query  :       |-----|
+    TimeRange first = TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false);
+    TimeRange second = TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false);
+    TimeRange third = TimeRange.fromStartDuration(TIME_1100AM, 60);
+    TimeRange fourth = TimeRange.fromStartDuration(TIME_0900AM, 150);
+    IntervalTree<TimeRange> tree =
+        new IntervalTree<>(Arrays.asList(first, second, third, fourth), Function.identity());
+
+    Assert.assertEquals(Arrays.asList(fourth, second), tree.overlapping(second));
+    Assert.assertEquals(Arrays.asList(fourth, third), tree.stabbing(TIME_1100AM));
+    Assert.assertEquals(Collections.emptyList(), tree.stabbing(TimeRange.END_OF_DAY));
+  }
+
+  @Test
+  public void matchesLinearScanOnRandomRanges() {
+    Random random = new Random(2020);
+    for (int trial = 0; trial < 100; trial++) {
+      List<TimeRange> ranges = new ArrayList<>();
+      int count = random.nextInt(200);
+      for (int i = 0; i < count; i++) {
+        ranges.add(randomRange(random));
+      }
+      // Half the trees are built at once and half one range at a time.
+      IntervalTree<TimeRange> tree;
+      if (trial % 2 == 0) {
+        tree = new IntervalTree<>(ranges, Function.identity());
+      } else {
+        tree = new IntervalTree<>();
+        for (TimeRange range : ranges) {
+          tree.insert(range, range);
+        }
+      }
+      Assert.assertEquals(ranges.size(), tree.size());
+
+      for (int query = 0; query < 20; query++) {
+        TimeRange range = randomRange(random);
+        List<TimeRange> expected = new ArrayList<>();
+        for (TimeRange candidate : ranges) {
+          if (candidate.overlaps(range)) {
+            expected.add(candidate);
+          }
+        }
+        List<TimeRange> actual = tree.overlapping(range);
+        expected.sort(TimeRange.ORDER_BY_START);
+        Assert.assertEquals(expected.size(), actual.size());
+        Assert.assertTrue(actual.containsAll(expected));
+        for (int i = 1; i < actual.size(); i++) {
+          Assert.assertTrue(actual.get(i - 1).start() <= actual.get(i).start());
+        }
+      }
+    }
+  }
+
+  private static TimeRange randomRange(Random random) {
+    // Some ranges have no duration, since they still overlap ranges that contain their start.
+    int duration = random.nextInt(5) == 0 ? 0 : random.nextInt(240);
+    return TimeRange.fromStartDuration(random.nextInt(TimeRange.WHOLE_DAY.duration()), duration);
+  }
+}
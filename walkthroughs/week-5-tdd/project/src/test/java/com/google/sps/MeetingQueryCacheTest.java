@@ -0,0 +1,119 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.gson.Gson;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class MeetingQueryCacheTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  @Test
+  public void repeatedRequestIsAHit() {
+    EventStore store = new EventStore(Collections.emptyList());
+    MeetingQueryCache cache = new MeetingQueryCache();
+
+    Collection<TimeRange> first = cache.query(store.getIndex(),
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES));
+    Collection<TimeRange> second = cache.query(store.getIndex(),
+        new MeetingRequest(Arrays.asList(PERSON_B, PERSON_A), DURATION_30_MINUTES));
+
+    Assert.assertSame(first, second);
+    Assert.assertEquals(1, cache.getHitCount());
+    Assert.assertEquals(1, cache.getMissCount());
+    Assert.assertEquals(0.5, cache.getHitRate(), 0);
+  }
+
+  @Test
+  public void changeToCalendarIsSeen() {
+    EventStore store = new EventStore(Collections.emptyList());
+    MeetingQueryCache cache = new MeetingQueryCache();
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    cache.query(store.getIndex(), request);
+
+    store.add(new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+        Arrays.asList(PERSON_A)));
+    Collection<TimeRange> actual = cache.query(store.getIndex(), request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+    Assert.assertEquals(0, cache.getHitCount());
+  }
+
+  @Test
+  public void differentCalendarsDontShareEntries() {
+    // Both stores start at their first index, which must not look like the same calendar.
+    EventStore empty = new EventStore(Collections.emptyList());
+    EventStore busy = new EventStore(Arrays.asList(
+        new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_A))));
+    MeetingQueryCache cache = new MeetingQueryCache();
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    cache.query(empty.getIndex(), request);
+    Collection<TimeRange> actual = cache.query(busy.getIndex(), request);
+
+    Assert.assertEquals(Collections.emptyList(), actual);
+    Assert.assertEquals(0, cache.getHitCount());
+  }
+
+  @Test
+  public void leastRecentlyUsedIsEvicted() {
+    EventStore store = new EventStore(Collections.emptyList());
+    MeetingQueryCache cache = new MeetingQueryCache(1, MeetingQueryCache.DEFAULT_TTL_MS);
+
+    cache.query(store.getIndex(), new MeetingRequest(Arrays.asList(PERSON_A), 30));
+    cache.query(store.getIndex(), new MeetingRequest(Arrays.asList(PERSON_A), 60));
+
+    Assert.assertEquals(1, cache.size());
+    Assert.assertEquals(1, cache.getEvictionCount());
+  }
+
+  @Test
+  public void expiredEntryIsAMiss() {
+    EventStore store = new EventStore(Collections.emptyList());
+    MeetingQueryCache cache = new MeetingQueryCache(10, 0);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    cache.query(store.getIndex(), request);
+    cache.query(store.getIndex(), request);
+
+    Assert.assertEquals(0, cache.getHitCount());
+    Assert.assertEquals(2, cache.getMissCount());
+  }
+
+  @Test
+  public void requestWithoutOptionalAttendeesFromJson() {
+    MeetingRequest request = new Gson().fromJson(
+        "{\"duration\": 30, \"attendees\": [\"Person A\"]}", MeetingRequest.class);
+
+    Assert.assertTrue(request.getOptionalAttendees().isEmpty());
+    Assert.assertEquals(30, request.getDuration());
+  }
+}
@@ -14,10 +14,12 @@
 
 package com.google.sps;
 
+import com.google.gson.Gson;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import org.junit.Assert;
 import org.junit.Before;
@@ -44,4 +46,46 @@ public final class MeetingRequestTest {
     int expected = 0;
     Assert.assertEquals(expected, actual);
   }
+
+  @Test
+  public void UnknownAttendeeIdsAreCachedUntilTheyHaveAnEvent() {
+    String newcomer = "Request Person Newcomer";
+    MeetingRequest request = new MeetingRequest(Arrays.asList(newcomer), DURATION_1_HOUR);
+
+    int[] before = request.getAttendeeIds();
+    Assert.assertEquals(0, before.length);
+    Assert.assertSame(before, request.getAttendeeIds());
+
+    Event event = new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList(newcomer));
+
+    int[] expected = event.getAttendeeIds();
+    Assert.assertArrayEquals(expected, request.getAttendeeIds());
+  }
+
+  @Test
+  public void OptionalAttendeesLeftOutOfJsonAreEmpty() {
+    // The UI never sends optional attendees.
+    String json = "{\"duration\":\"30\",\"attendees\":[\"" + PERSON_A + "\"]}";
+    MeetingRequest request = new Gson().fromJson(json, MeetingRequest.class);
+
+    Assert.assertEquals(Arrays.asList(PERSON_A), new ArrayList<>(request.getAttendees()));
+    Assert.assertTrue(request.getOptionalAttendees().isEmpty());
+    Assert.assertEquals(30, request.getDuration());
+  }
+
+  @Test
+  public void GsonRoundTripKeepsAllAttendees() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+
+    Gson gson = new Gson();
+    MeetingRequest actual = gson.fromJson(gson.toJson(request), MeetingRequest.class);
+
+    Assert.assertEquals(
+        new HashSet<>(request.getAttendees()), new HashSet<>(actual.getAttendees()));
+    Assert.assertEquals(new HashSet<>(request.getOptionalAttendees()),
+        new HashSet<>(actual.getOptionalAttendees()));
+    Assert.assertEquals(request.getDuration(), actual.getDuration());
+  }
 }
\ No newline at end of file
@@ -0,0 +1,210 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class RankedMeetingQueryTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0905AM = TimeRange.getTimeInMinutes(9, 5);
+  private static final int TIME_0910AM = TimeRange.getTimeInMinutes(9, 10);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1200PM = TimeRange.getTimeInMinutes(12, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_1_HOUR = 60;
+
+  @Test
+  public void preferredHoursComeFirst() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+
+    List<RankedSlot> actual = new FindMeetingQuery().queryRanked(
+        events, request, SlotScorer.preferredHours(TIME_0900AM, TIME_1200PM), 3);
+
+    Assert.assertEquals(Arrays.asList(TIME_0900AM, TIME_0905AM, TIME_0910AM), starts(actual));
+  }
+
+  @Test
+  public void optionalCoverageAvoidsBusyOptionalAttendees() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_B)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    List<RankedSlot> actual = new FindMeetingQuery().queryRanked(
+        events, request, SlotScorer.optionalCoverage(), 1);
+
+    Assert.assertEquals(Arrays.asList(TIME_1000AM), starts(actual));
+    Assert.assertEquals(1, actual.get(0).getScore(), 0);
+  }
+
+  @Test
+  public void lowFragmentationPrefersTheEdgesOfFreeTime() {
+    // Only [9:00, 10:00) is free, so a 30 minute meeting at 9:05 would leave 5 unusable minutes.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    List<RankedSlot> actual = new FindMeetingQuery().queryRanked(
+        events, request, SlotScorer.lowFragmentation(), 2);
+
+    Assert.assertEquals(Arrays.asList(TIME_0900AM, TIME_0930AM), starts(actual));
+  }
+
+  @Test
+  public void noSlotsWhenRequiredAttendeesAreBusy() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    List<RankedSlot> actual = new FindMeetingQuery().queryRanked(
+        events, request, SlotScorer.optionalCoverage(), 5);
+
+    Assert.assertTrue(actual.isEmpty());
+  }
+
+  @Test
+  public void hugeKReturnsEveryCandidate() {
+    // Only [9:00, 10:00) is free, which leaves 7 start times for a 30 minute meeting.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    List<RankedSlot> actual = new FindMeetingQuery().queryRanked(
+        events, request, SlotScorer.lowFragmentation(), Integer.MAX_VALUE);
+
+    Assert.assertEquals(7, actual.size());
+  }
+
+  @Test
+  public void matchesRankingEveryCandidateOnRandomCalendars() {
+    Random random = new Random(2025);
+    String[] people = {PERSON_A, PERSON_B, "Person C", "Person D", "Person E", "Person F"};
+
+    for (int trial = 0; trial < 300; trial++) {
+      List<Event> events = new ArrayList<>();
+      int eventCount = random.nextInt(30);
+      for (int i = 0; i < eventCount; i++) {
+        int start = random.nextInt(TimeRange.WHOLE_DAY.duration() + 60) - 30;
+        int duration = random.nextInt(240);
+        events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration),
+            randomPeople(random, people)));
+      }
+      MeetingRequest request =
+          new MeetingRequest(randomPeople(random, people), 1 + random.nextInt(180));
+      for (String person : randomPeople(random, people)) {
+        request.addOptionalAttendee(person);
+      }
+      SlotScorer scorer = SlotScorer.preferredHours(TIME_0900AM, TIME_1200PM)
+          .plus(1, SlotScorer.soonAfter(random.nextInt(TimeRange.WHOLE_DAY.duration())))
+          .plus(1, SlotScorer.lowFragmentation())
+          .plus(2, SlotScorer.optionalCoverage());
+      int k = 1 + random.nextInt(10);
+
+      AttendeeAvailabilityIndex index = new AttendeeAvailabilityIndex(events);
+      List<RankedSlot> expected = rankEveryCandidate(events, index, request, scorer, k);
+      List<RankedSlot> actual = new RankedMeetingQuery(index).query(request, scorer, k);
+
+      Assert.assertEquals(starts(expected), starts(actual));
+      for (int i = 0; i < expected.size(); i++) {
+        Assert.assertEquals(expected.get(i).getScore(), actual.get(i).getScore(), 0);
+      }
+    }
+  }
+
+  /**
+   * Scores every start time that the query tries, with the optional attendees checked against
+   * every event, and returns the best k.
+   */
+  private static List<RankedSlot> rankEveryCandidate(Collection<Event> events,
+      AttendeeAvailabilityIndex index, MeetingRequest request, SlotScorer scorer, int k) {
+    int duration = (int) request.getDuration();
+    List<RankedSlot> all = new ArrayList<>();
+    for (TimeRange free : index.query(request)) {
+      int lastStart = free.end() - Math.max(duration, 1);
+      for (int start = free.start(); start <= lastStart; start++) {
+        if (start % RankedMeetingQuery.STEP != 0 && start != free.start() && start != lastStart) {
+          continue;
+        }
+        TimeRange when = TimeRange.fromStartDuration(start, duration);
+        SlotCandidate candidate = new SlotCandidate();
+        candidate.start = start;
+        candidate.duration = duration;
+        candidate.freeStart = free.start();
+        candidate.freeEnd = free.end();
+        candidate.optionalCount = request.getOptionalAttendees().size();
+        for (String person : request.getOptionalAttendees()) {
+          boolean isFree = true;
+          for (Event event : events) {
+            if (event.getWhen().duration() > 0 && event.getWhen().overlaps(when)
+                && event.getAttendees().contains(person)) {
+              isFree = false;
+            }
+          }
+          candidate.optionalFree += isFree ? 1 : 0;
+        }
+        all.add(new RankedSlot(when, scorer.score(candidate)));
+      }
+    }
+    all.sort(Comparator.comparingDouble(RankedSlot::getScore).reversed()
+        .thenComparing(slot -> slot.getWhen().start()));
+    return all.subList(0, Math.min(k, all.size()));
+  }
+
+  private static List<Integer> starts(List<RankedSlot> slots) {
+    List<Integer> starts = new ArrayList<>();
+    for (RankedSlot slot : slots) {
+      starts.add(slot.getWhen().start());
+    }
+    return starts;
+  }
+
+  private static List<String> randomPeople(Random random, String[] people) {
+    List<String> chosen = new ArrayList<>();
+    for (String person : people) {
+      if (random.nextInt(3) == 0) {
+        chosen.add(person);
+      }
+    }
+    return chosen;
+  }
+}
@@ -0,0 +1,131 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class TimeRangeListTest {
+  @Test
+  public void radixSortMatchesSortingTimeRanges() {
+    Random random = new Random(2020);
+    for (int trial = 0; trial < 50; trial++) {
+      // Long enough to be radix sorted, with some negative starts.
+      TimeRangeList list = new TimeRangeList();
+      List<TimeRange> expected = new ArrayList<>();
+      int count = 64 + random.nextInt(1000);
+      for (int i = 0; i < count; i++) {
+        TimeRange range =
+            TimeRange.fromStartDuration(random.nextInt(3000) - 1000, random.nextInt(300));
+        list.add(range);
+        expected.add(range);
+      }
+
+      list.sort();
+      Collections.sort(expected, (a, b) -> a.start() != b.start()
+          ? Integer.compare(a.start(), b.start())
+          : Integer.compare(a.duration(), b.duration()));
+
+      Assert.assertEquals(expected, list.toTimeRanges());
+    }
+  }
+
+  @Test
+  public void mergeOverlaps() {
+    // |--A--|
+    //    |--B--|  |C|
+    //          |D|
+    TimeRangeList list = new TimeRangeList();
+    list.add(0, 30);
+    list.add(15, 30);
+    list.add(60, 10);
+    list.add(45, 10);
+    list.add(50, 0);
+
+    list.sort();
+    list.mergeOverlaps();
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(0, 55, false),
+        TimeRange.fromStartEnd(60, 70, false)), list.toTimeRanges());
+  }
+
+  @Test
+  public void complementAndFilter() {
+    TimeRangeList list = new TimeRangeList();
+    list.add(-30, 60);
+    list.add(100, 10);
+    list.add(200, 1000);
+
+    list.complement(0, 500);
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(30, 100, false),
+        TimeRange.fromStartEnd(110, 200, false)), list.toTimeRanges());
+
+    list.filterMinDuration(80);
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(110, 200, false)), list.toTimeRanges());
+  }
+
+  @Test
+  public void trimmedListGivesBackSpaceAndStillSorts() {
+    TimeRangeList list = new TimeRangeList();
+    for (int i = 0; i < 5000; i++) {
+      list.add(5000 - i, 1);
+    }
+    list.sort();
+    list.clear();
+
+    list.trimToCapacity(100);
+
+    Assert.assertEquals(100, list.capacity());
+    for (int i = 0; i < 200; i++) {
+      list.add(200 - i, 1);
+    }
+    list.sort();
+    Assert.assertEquals(1, list.start(0));
+    Assert.assertEquals(200, list.start(199));
+  }
+
+  @Test
+  public void trimKeepsTheRangesInTheList() {
+    TimeRangeList list = new TimeRangeList();
+    for (int i = 0; i < 50; i++) {
+      list.add(i * 10, 5);
+    }
+
+    list.trimToCapacity(10);
+
+    Assert.assertEquals(50, list.size());
+    Assert.assertEquals(490, list.start(49));
+  }
+
+  @Test
+  public void complementOfNothingIsTheWindow() {
+    TimeRangeList list = new TimeRangeList(0);
+
+    list.complement(TimeRange.START_OF_DAY, TimeRange.WHOLE_DAY.end());
+
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), list.toTimeRanges());
+  }
+}